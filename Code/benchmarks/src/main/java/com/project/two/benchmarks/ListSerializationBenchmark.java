@@ -0,0 +1,90 @@
+package com.project.two.benchmarks;
+
+import com.google.gson.Gson;
+import com.project.two.CompanyServices;
+import com.project.two.data.RowCursor;
+import com.project.two.fixtures.Fixtures;
+import com.project.two.json.EntityFields;
+import com.project.two.json.FieldProjection;
+import com.project.two.protobuf.EntityMessages;
+import companydata.*;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Writes employee and timecard lists the way the list endpoints do, through
+ * the service's Gson type adapters and streaming array writer, in full and
+ * through a fields= projection, and as the delimited protobuf messages sent
+ * for Accept: application/x-protobuf.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    int size;
+
+    private Gson gson;
+    private List<Employee> employees;
+    private List<Timecard> timecards;
+    private FieldProjection<Employee> employeeSummary;
+    private ByteArrayOutputStream output;
+
+    @Setup
+    public void setUp() {
+        gson = CompanyServices.createGson();
+        employees = Fixtures.employees(size);
+        timecards = Fixtures.timecards(1, size);
+        employeeSummary = EntityFields.EMPLOYEE.select("emp_id,emp_name,dept_id");
+        output = new ByteArrayOutputStream(size * 200);
+    }
+
+    @Benchmark
+    public int employees() throws IOException {
+        output.reset();
+        CompanyServices.writeJsonArray(gson, RowCursor.of(employees), Employee.class, output);
+        return output.size();
+    }
+
+    // The fields= projection most list consumers ask for
+    @Benchmark
+    public int employeesProjected() throws IOException {
+        output.reset();
+        CompanyServices.writeJsonArray(gson, RowCursor.of(employees), employeeSummary, output);
+        return output.size();
+    }
+
+    @Benchmark
+    public int timecards() throws IOException {
+        output.reset();
+        CompanyServices.writeJsonArray(gson, RowCursor.of(timecards), Timecard.class, output);
+        return output.size();
+    }
+
+    @Benchmark
+    public int employeesProtobuf() throws IOException {
+        output.reset();
+        EntityMessages.writeDelimited(RowCursor.of(employees), null, output);
+        return output.size();
+    }
+
+    @Benchmark
+    public int timecardsProtobuf() throws IOException {
+        output.reset();
+        EntityMessages.writeDelimited(RowCursor.of(timecards), null, output);
+        return output.size();
+    }
+
+    // The buffered alternative the endpoints used before streaming, for comparison
+    @Benchmark
+    public String employeesToJsonString() {
+        return gson.toJson(employees);
+    }
+}
@@ -0,0 +1,47 @@
+package com.project.two.benchmarks;
+
+import com.google.gson.Gson;
+import com.project.two.CompanyServices;
+import com.project.two.fixtures.Fixtures;
+import companydata.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The {"success": record} body returned by every insert and update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SuccessResponseBenchmark {
+    private Gson gson;
+    private Department department;
+    private Employee employee;
+    private Timecard timecard;
+
+    @Setup
+    public void setUp() {
+        gson = CompanyServices.createGson();
+        department = Fixtures.departments(1).get(0);
+        employee = Fixtures.employees(1).get(0);
+        timecard = Fixtures.timecard(1, 1, 0);
+    }
+
+    @Benchmark
+    public String department() {
+        return CompanyServices.createSuccessResponse(gson, department);
+    }
+
+    @Benchmark
+    public String employee() {
+        return CompanyServices.createSuccessResponse(gson, employee);
+    }
+
+    @Benchmark
+    public String timecard() {
+        return CompanyServices.createSuccessResponse(gson, timecard);
+    }
+}
@@ -0,0 +1,110 @@
+package com.project.two.benchmarks;
+
+import com.project.two.business.BusinessLayer;
+import com.project.two.business.EntityValidator;
+import com.project.two.business.ImportRecords;
+import com.project.two.fixtures.Fixtures;
+import companydata.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The service's own employee and timecard validation, as an insert runs it,
+ * against a company of the given number of employees, each with
+ * TIMECARDS_PER_EMPLOYEE timecards, imported into the in-memory storage
+ * engine.
+ *
+ * Each call opens a unit of work, validates and rolls back, so the same
+ * candidates can be checked on every invocation. The lookups go through the
+ * business layer's caches and day index, which are warm after the first
+ * invocation, as they would be on a busy server.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dcompanyservices.storage=memory")
+public class ValidationBenchmark {
+    static final int TIMECARDS_PER_EMPLOYEE = 20;
+
+    @Param({"10", "1000", "10000"})
+    int size;
+
+    private BusinessLayer bl;
+    private Employee newEmployee;
+    private Timecard newTimecard;
+    private Timecard conflictingTimecard;
+
+    @Setup
+    public void setUp() throws Exception {
+        bl = new BusinessLayer();
+        List<Object> records = new ArrayList<>();
+        records.addAll(Fixtures.departments(size));
+        records.addAll(Fixtures.employees(size));
+        records.addAll(Fixtures.timecards(size, TIMECARDS_PER_EMPLOYEE));
+        bl.importCompany(Fixtures.COMPANY, recordsOf(records));
+
+        // Every fork starts with empty storage, so rows keep their fixture ids
+        int empId = size / 2 + 1;
+        Employee emp = bl.getEmployee(empId);
+        if (emp == null || !emp.getEmpNo().equals("e" + empId)) {
+            throw new IllegalStateException("Storage was not empty before the import");
+        }
+        newEmployee = new Employee(0, "New Employee", "new", java.sql.Date.valueOf("2024-01-08"),
+            "Engineer", 60000.0, 1, empId);
+        newTimecard = Fixtures.timecard(0, empId, TIMECARDS_PER_EMPLOYEE);
+        conflictingTimecard = Fixtures.timecard(0, empId, TIMECARDS_PER_EMPLOYEE - 1);
+    }
+
+    private static ImportRecords recordsOf(List<Object> records) {
+        Iterator<Object> next = records.iterator();
+        return new ImportRecords() {
+            private int position;
+
+            @Override
+            public Object next() {
+                if (!next.hasNext()) {
+                    return null;
+                }
+                position++;
+                return next.next();
+            }
+
+            @Override
+            public String position() {
+                return "Record " + position;
+            }
+        };
+    }
+
+    @Benchmark
+    public void validateEmployee() throws Exception {
+        bl.validateEmployee(newEmployee, true);
+    }
+
+    @Benchmark
+    public void validateTimecard() throws Exception {
+        bl.validateTimecard(newTimecard);
+    }
+
+    // Field rules alone, without the lookups
+    @Benchmark
+    public void checkTimecard() throws Exception {
+        EntityValidator.checkTimecard(newTimecard);
+    }
+
+    // Rejections build an Exception, stack trace included
+    @Benchmark
+    public String validateTimecardConflict() {
+        try {
+            bl.validateTimecard(conflictingTimecard);
+            return null;
+        } catch (Exception e) {
+            return e.getMessage();
+        }
+    }
+}
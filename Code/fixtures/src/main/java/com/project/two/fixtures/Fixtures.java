@@ -0,0 +1,76 @@
+package com.project.two.fixtures;
+
+import companydata.*;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic rows shaped like the ones the service stores, the same on
+ * every run of a given size.
+ *
+ * Every employee works in one of the departments and, apart from the first,
+ * reports to the previous employee. Timecards fall on consecutive weekdays
+ * from Monday 2024-01-01, 09:00 to 17:00 local time, so every row passes
+ * validation. Ids count from 1 in each list, as an empty database would
+ * assign them.
+ */
+public final class Fixtures {
+    public static final String COMPANY = "njw1389";
+    public static final int EMPLOYEES_PER_DEPARTMENT = 10;
+    public static final LocalDate FIRST_WORK_DAY = LocalDate.of(2024, 1, 1);
+
+    private Fixtures() {
+    }
+
+    public static List<Department> departments(int employees) {
+        int count = (employees + EMPLOYEES_PER_DEPARTMENT - 1) / EMPLOYEES_PER_DEPARTMENT;
+        List<Department> departments = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            departments.add(new Department(i, COMPANY, "Department " + i, "d" + i, "Rochester"));
+        }
+        return departments;
+    }
+
+    public static List<Employee> employees(int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        java.sql.Date hireDate = java.sql.Date.valueOf("2020-01-06");
+        for (int i = 1; i <= count; i++) {
+            employees.add(new Employee(i, "Employee " + i, "e" + i, hireDate, "Engineer",
+                50000.0 + i, (i - 1) / EMPLOYEES_PER_DEPARTMENT + 1, i - 1));
+        }
+        return employees;
+    }
+
+    // perEmployee timecards for each of the first employees, ids from 1
+    public static List<Timecard> timecards(int employees, int perEmployee) {
+        List<Timecard> timecards = new ArrayList<>(employees * perEmployee);
+        int id = 1;
+        for (int emp = 1; emp <= employees; emp++) {
+            for (int day = 0; day < perEmployee; day++) {
+                timecards.add(timecard(id++, emp, day));
+            }
+        }
+        return timecards;
+    }
+
+    // A timecard on the employee's workDay-th weekday
+    public static Timecard timecard(int id, int empId, int workDay) {
+        return new Timecard(id, startOf(workDay), endOf(workDay), empId);
+    }
+
+    // The workDay-th weekday, 09:00 to 17:00
+    public static Timestamp startOf(int workDay) {
+        return Timestamp.valueOf(day(workDay).atTime(LocalTime.of(9, 0)));
+    }
+
+    public static Timestamp endOf(int workDay) {
+        return Timestamp.valueOf(day(workDay).atTime(LocalTime.of(17, 0)));
+    }
+
+    private static LocalDate day(int workDay) {
+        return FIRST_WORK_DAY.plusDays(workDay / 5 * 7L + workDay % 5);
+    }
+}
@@ -0,0 +1,43 @@
+package com.project.two.loadtest;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.project.two.CompanyServices;
+import com.project.two.fixtures.Fixtures;
+
+/**
+ * The company a load test runs against, the {@link Fixtures} company of the
+ * given size written as the NDJSON body of a company import. Timecards
+ * inserted during the run take the weekdays after the seeded ones.
+ */
+final class Dataset {
+    private static final Gson GSON = CompanyServices.createGson();
+
+    final int employees;
+    final int timecardsPerEmployee;
+
+    Dataset(int employees, int timecardsPerEmployee) {
+        this.employees = employees;
+        this.timecardsPerEmployee = timecardsPerEmployee;
+    }
+
+    String toNdjson() {
+        StringBuilder out = new StringBuilder();
+        for (Object dept : Fixtures.departments(employees)) {
+            append(out, "department", dept);
+        }
+        for (Object emp : Fixtures.employees(employees)) {
+            append(out, "employee", emp);
+        }
+        for (Object timecard : Fixtures.timecards(employees, timecardsPerEmployee)) {
+            append(out, "timecard", timecard);
+        }
+        return out.toString();
+    }
+
+    private static void append(StringBuilder out, String name, Object record) {
+        JsonObject line = new JsonObject();
+        line.add(name, GSON.toJsonTree(record));
+        out.append(line).append('\n');
+    }
+}
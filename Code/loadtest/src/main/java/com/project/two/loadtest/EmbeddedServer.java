@@ -0,0 +1,31 @@
+package com.project.two.loadtest;
+
+import com.project.two.CompanyServicesApplication;
+import java.net.URI;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
+
+/**
+ * The Jersey application of web.xml under /webapi, served by Grizzly on a
+ * free port of localhost.
+ */
+final class EmbeddedServer implements AutoCloseable {
+    private final HttpServer server;
+    private final URI baseUri;
+
+    EmbeddedServer() throws Exception {
+        server = GrizzlyHttpServerFactory.createHttpServer(URI.create("http://localhost:0/webapi/"),
+            new CompanyServicesApplication());
+        int port = server.getListeners().iterator().next().getPort();
+        baseUri = URI.create("http://localhost:" + port + "/webapi/CompanyServices/");
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void close() {
+        server.shutdownNow();
+    }
+}
@@ -0,0 +1,229 @@
+package com.project.two.loadtest;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.project.two.fixtures.Fixtures;
+import com.project.two.util.Config;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the service in an {@link EmbeddedServer}, imports a {@link Dataset}
+ * and runs a {@link Workload} from closed-loop client threads, each sending
+ * its next request once the previous one is answered.
+ *
+ * Options, all --name=value: threads (16), warmup and duration in seconds
+ * (10 and 30), mix ({@link Workload#DEFAULT_MIX}), employees (1000),
+ * timecards per employee (5), seed (42) and json, a file to also write the
+ * report to. Requests sent during the warmup are not recorded. With the same
+ * options, every run sends the same sequence of requests from each thread.
+ */
+public final class LoadTestMain {
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("threads", "16");
+        DEFAULTS.put("warmup", "10");
+        DEFAULTS.put("duration", "30");
+        DEFAULTS.put("mix", Workload.DEFAULT_MIX);
+        DEFAULTS.put("employees", "1000");
+        DEFAULTS.put("timecards", "5");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("json", "");
+    }
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options;
+        Map<Workload.Operation, Integer> mix;
+        try {
+            options = parse(args);
+            mix = Workload.parseMix(options.get("mix"));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Options: " + DEFAULTS.keySet().stream().map(name -> "--" + name + "=...").toList());
+            System.exit(2);
+            return;
+        }
+        int threads = positive(options, "threads");
+        int warmup = Integer.parseInt(options.get("warmup"));
+        int duration = positive(options, "duration");
+        long seed = Long.parseLong(options.get("seed"));
+        Dataset dataset = new Dataset(positive(options, "employees"), Integer.parseInt(options.get("timecards")));
+
+        // The in-memory engine unless another one was asked for
+        if (System.getProperty("companyservices.storage") == null) {
+            System.setProperty("companyservices.storage", "memory");
+        }
+
+        try (EmbeddedServer server = new EmbeddedServer()) {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            URI base = server.baseUri();
+            int[] empIds = seed(client, base, dataset);
+            Workload workload = new Workload(base, dataset, empIds, mix);
+
+            Report report = new Report();
+            report.setting("java", System.getProperty("java.vm.name") + " " + Runtime.version());
+            report.setting("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+            report.setting("cpus", Runtime.getRuntime().availableProcessors());
+            report.setting("storage", Config.getString("companyservices.storage", "mysql"));
+            report.setting("threads", threads);
+            report.setting("warmup", warmup + "s");
+            report.setting("duration", duration + "s");
+            report.setting("mix", options.get("mix"));
+            report.setting("employees", dataset.employees);
+            report.setting("timecards", dataset.timecardsPerEmployee);
+            report.setting("seed", seed);
+
+            Map<Workload.Operation, Samples> results = run(client, workload, threads, warmup, duration, seed);
+            Samples all = new Samples();
+            for (Map.Entry<Workload.Operation, Samples> result : results.entrySet()) {
+                report.add(Report.Row.of(result.getKey().label, result.getValue(), duration));
+                all.addAll(result.getValue());
+            }
+            report.add(Report.Row.of("all", all, duration));
+            report.print(System.out);
+            if (!options.get("json").isEmpty()) {
+                report.writeJson(Path.of(options.get("json")));
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (name == null || !DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+            options.put(name, arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static int positive(Map<String, String> options, String name) {
+        try {
+            int value = Integer.parseInt(options.get(name));
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("--" + name + " must be a positive number");
+    }
+
+    // Replaces the company with the dataset and returns its employee ids in
+    // the order of the dataset, read a page at a time
+    private static int[] seed(HttpClient client, URI base, Dataset dataset) throws Exception {
+        String company = "?company=" + Fixtures.COMPANY;
+        send(client, HttpRequest.newBuilder(base.resolve("company" + company)).DELETE().build());
+        send(client, HttpRequest.newBuilder(base.resolve("company/import" + company))
+            .header("Content-Type", "application/x-ndjson")
+            .POST(HttpRequest.BodyPublishers.ofString(dataset.toNdjson()))
+            .build());
+        List<Integer> empIds = new ArrayList<>();
+        String after = "0";
+        do {
+            HttpResponse<String> page = exchange(client, HttpRequest.newBuilder(
+                base.resolve("employees" + company + "&after=" + after)).header("Accept", "application/json").build());
+            for (JsonElement emp : JsonParser.parseString(page.body()).getAsJsonArray()) {
+                empIds.add(emp.getAsJsonObject().get("emp_id").getAsInt());
+            }
+            after = page.headers().firstValue("X-Next-Cursor").orElse(null);
+        } while (after != null);
+        if (empIds.size() != dataset.employees) {
+            throw new IllegalStateException("Seeded " + empIds.size() + " employees instead of " + dataset.employees);
+        }
+        return empIds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String send(HttpClient client, HttpRequest request) throws Exception {
+        return exchange(client, request).body();
+    }
+
+    private static HttpResponse<String> exchange(HttpClient client, HttpRequest request) throws Exception {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 || isError(response.body())) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " failed: "
+                + response.statusCode() + " " + response.body());
+        }
+        return response;
+    }
+
+    // Failures are answered with 200 and an error body
+    private static boolean isError(String body) {
+        return body.startsWith("{\"error\"");
+    }
+
+    private static Map<Workload.Operation, Samples> run(HttpClient client, Workload workload, int threads,
+                                                        int warmup, int duration, long seed) throws Exception {
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(client, workload, new Random(seed * 31 + i), measureFrom, end);
+            workers[i].start();
+        }
+        Map<Workload.Operation, Samples> results = new EnumMap<>(Workload.Operation.class);
+        for (Worker worker : workers) {
+            worker.join();
+            if (worker.failure != null) {
+                throw worker.failure;
+            }
+            for (Map.Entry<Workload.Operation, Samples> samples : worker.samples.entrySet()) {
+                results.computeIfAbsent(samples.getKey(), key -> new Samples()).addAll(samples.getValue());
+            }
+        }
+        return results;
+    }
+
+    private static final class Worker extends Thread {
+        private final HttpClient client;
+        private final Workload workload;
+        private final Random random;
+        private final long measureFrom;
+        private final long end;
+        private final Map<Workload.Operation, Samples> samples = new EnumMap<>(Workload.Operation.class);
+        private Exception failure;
+
+        Worker(HttpClient client, Workload workload, Random random, long measureFrom, long end) {
+            this.client = client;
+            this.workload = workload;
+            this.random = random;
+            this.measureFrom = measureFrom;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (long start = System.nanoTime(); start < end; start = System.nanoTime()) {
+                    Workload.Operation operation = workload.pick(random);
+                    HttpResponse<String> response = client.send(workload.request(operation, random),
+                        HttpResponse.BodyHandlers.ofString());
+                    long latency = System.nanoTime() - start;
+                    if (start >= measureFrom) {
+                        boolean ok = response.statusCode() == 200 && !isError(response.body());
+                        samples.computeIfAbsent(operation, key -> new Samples()).record(latency, ok);
+                    }
+                }
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+    }
+}
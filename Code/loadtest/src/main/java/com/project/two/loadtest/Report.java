@@ -0,0 +1,77 @@
+package com.project.two.loadtest;
+
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles of a run, per operation and overall,
+ * along with the settings and machine needed to compare it with another run.
+ */
+final class Report {
+    private final Map<String, Object> settings = new LinkedHashMap<>();
+    private final List<Row> rows = new ArrayList<>();
+
+    /**
+     * One operation's results; latencies in milliseconds, nearest-rank
+     * percentiles.
+     */
+    record Row(String operation, int requests, long errors, double requestsPerSecond,
+               double p50, double p90, double p99, double p999, double max) {
+
+        static Row of(String operation, Samples samples, double seconds) {
+            long[] sorted = samples.sorted();
+            return new Row(operation, sorted.length, samples.errors(), sorted.length / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted.length == 0 ? 0 : millis(sorted[sorted.length - 1]));
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p * sorted.length);
+            return millis(sorted[Math.max(rank, 1) - 1]);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    void setting(String name, Object value) {
+        settings.put(name, value);
+    }
+
+    void add(Row row) {
+        rows.add(row);
+    }
+
+    void print(PrintStream out) {
+        for (Map.Entry<String, Object> setting : settings.entrySet()) {
+            out.printf("%-12s %s%n", setting.getKey(), setting.getValue());
+        }
+        out.println();
+        out.printf("%-16s %9s %7s %10s %9s %9s %9s %9s %9s%n",
+            "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Row row : rows) {
+            out.printf("%-16s %9d %7d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                row.operation(), row.requests(), row.errors(), row.requestsPerSecond(),
+                row.p50(), row.p90(), row.p99(), row.p999(), row.max());
+        }
+    }
+
+    void writeJson(Path file) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("settings", settings);
+        json.put("results", rows);
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create().toJson(json), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,49 @@
+package com.project.two.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The latencies of one operation recorded by one worker, kept whole so the
+ * percentiles are exact rather than bucketed.
+ */
+final class Samples {
+    private long[] nanos = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long latencyNanos, boolean ok) {
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = latencyNanos;
+        if (!ok) {
+            errors++;
+        }
+    }
+
+    void addAll(Samples other) {
+        if (size + other.size > nanos.length) {
+            nanos = Arrays.copyOf(nanos, Math.max(size + other.size, size * 2));
+        }
+        System.arraycopy(other.nanos, 0, nanos, size, other.size);
+        size += other.size;
+        errors += other.errors;
+    }
+
+    int count() {
+        return size;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * The latencies in ascending order.
+     */
+    long[] sorted() {
+        long[] sorted = Arrays.copyOf(nanos, size);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,141 @@
+package com.project.two.loadtest;
+
+import com.project.two.fixtures.Fixtures;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A scripted mix of requests, each picked at random by its weight, against
+ * the employees of the {@link Dataset}.
+ *
+ * A mix is written as label=weight pairs, e.g. "employee=90,insert-timecard=10".
+ * Inserted timecards go on weekdays no employee has a timecard for yet, so
+ * every insert passes validation however long the run.
+ */
+final class Workload {
+
+    enum Operation {
+        EMPLOYEES("employees"),
+        EMPLOYEE("employee"),
+        DEPARTMENTS("departments"),
+        TIMECARDS("timecards"),
+        INSERT_TIMECARD("insert-timecard");
+
+        final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    // 90% reads, 10% timecard inserts
+    static final String DEFAULT_MIX = "employees=5,employee=40,departments=5,timecards=40,insert-timecard=10";
+
+    private final URI base;
+    private final Dataset dataset;
+    private final int[] empIds;
+    private final Operation[] operations;
+    private final int[] upTo;
+    private final AtomicInteger nextInsert = new AtomicInteger();
+
+    Workload(URI base, Dataset dataset, int[] empIds, Map<Operation, Integer> mix) {
+        this.base = base;
+        this.dataset = dataset;
+        this.empIds = empIds;
+        operations = mix.keySet().toArray(new Operation[0]);
+        upTo = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            upTo[i] = total;
+        }
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String pair : mix.split(",")) {
+            String[] parts = pair.trim().split("=");
+            Operation operation = null;
+            for (Operation candidate : Operation.values()) {
+                if (parts.length == 2 && candidate.label.equals(parts[0].trim())) {
+                    operation = candidate;
+                }
+            }
+            if (operation == null) {
+                throw new IllegalArgumentException("Invalid mix entry: " + pair);
+            }
+            try {
+                int weight = Integer.parseInt(parts[1].trim());
+                if (weight < 0) {
+                    throw new IllegalArgumentException("Invalid mix weight: " + pair);
+                }
+                if (weight > 0) {
+                    weights.put(operation, weight);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid mix weight: " + pair);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation with a weight above zero");
+        }
+        return weights;
+    }
+
+    Operation pick(Random random) {
+        int ticket = random.nextInt(upTo[upTo.length - 1]);
+        int i = 0;
+        while (ticket >= upTo[i]) {
+            i++;
+        }
+        return operations[i];
+    }
+
+    HttpRequest request(Operation operation, Random random) {
+        String company = "company=" + Fixtures.COMPANY;
+        return switch (operation) {
+            case EMPLOYEES -> get("employees?" + company);
+            case EMPLOYEE -> get("employee?" + company + "&emp_id=" + anyEmployee(random));
+            case DEPARTMENTS -> get("departments?" + company);
+            case TIMECARDS -> get("timecards?" + company + "&emp_id=" + anyEmployee(random));
+            case INSERT_TIMECARD -> insertTimecard(company);
+        };
+    }
+
+    private int anyEmployee(Random random) {
+        return empIds[random.nextInt(empIds.length)];
+    }
+
+    // The n-th insert of the run goes to employee n % employees, on the first
+    // weekday after their earlier timecards
+    private HttpRequest insertTimecard(String company) {
+        int n = nextInsert.getAndIncrement();
+        int workDay = dataset.timecardsPerEmployee + n / empIds.length;
+        String form = company
+            + "&emp_id=" + empIds[n % empIds.length]
+            + "&start_time=" + encode(Fixtures.startOf(workDay).toString())
+            + "&end_time=" + encode(Fixtures.endOf(workDay).toString());
+        return HttpRequest.newBuilder(base.resolve("timecard"))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .header("Accept", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,188 @@
+package com.project.two;
+
+import com.project.two.util.Config;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control in front of the request bodies, so a traffic spike is
+ * turned away early instead of piling onto the connection pool.
+ *
+ * Reads and writes each have a lane with its own concurrency limit and a
+ * bounded queue. A request that finds the queue full is rejected at once
+ * with 429 Too Many Requests; one that waits longer than
+ * companyservices.admission.maxWaitMillis gets 503 Service Unavailable. Both
+ * carry a Retry-After of the time the queue ahead should take to drain.
+ *
+ * Unless companyservices.admission.adaptive is false, each lane's limit
+ * follows database latency, in the manner of TCP Vegas: every window of
+ * WINDOW_SAMPLES requests compares the average time per query with the
+ * lowest average seen. Beyond twice that the limit drops by a tenth, down to
+ * the lane's minimum; otherwise, if the window reached the limit, it grows
+ * by one up to the configured maximum. Requests that make no query do not
+ * count.
+ */
+final class Admission {
+    static final Lane READS = new Lane("read",
+        Config.getInt("companyservices.admission.reads.maxInFlight", 32),
+        Config.getInt("companyservices.admission.reads.minInFlight", 4),
+        Config.getInt("companyservices.admission.reads.maxQueue", 256));
+    static final Lane WRITES = new Lane("write",
+        Config.getInt("companyservices.admission.writes.maxInFlight", 8),
+        Config.getInt("companyservices.admission.writes.minInFlight", 1),
+        Config.getInt("companyservices.admission.writes.maxQueue", 64));
+
+    private static final long MAX_WAIT_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(Config.getLong("companyservices.admission.maxWaitMillis", 2000));
+    private static final boolean ADAPTIVE = Config.getBoolean("companyservices.admission.adaptive", true);
+    private static final int WINDOW_SAMPLES = 20;
+
+    private Admission() {
+    }
+
+    static Lane laneFor(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) ? READS : WRITES;
+    }
+
+    static List<AdmissionStats> getStats() {
+        return List.of(READS.getStats(), WRITES.getStats());
+    }
+
+    /**
+     * Why a request was not admitted, with the response that says so.
+     */
+    record Rejection(Response.Status status, long retryAfterSeconds, String message) {
+    }
+
+    static final class Lane {
+        private final String name;
+        private final int minLimit;
+        private final int maxLimit;
+        private final int maxQueue;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+
+        // Guarded by lock
+        private int limit;
+        private int inFlight;
+        private int queued;
+        private double holdNanos;
+        private long queueFull;
+        private long timedOut;
+        private int peakInFlight;
+        private int windowSamples;
+        private double windowNanos;
+        private double baselineNanos;
+
+        Lane(String name, int maxLimit, int minLimit, int maxQueue) {
+            this.name = name;
+            this.maxLimit = Math.max(1, maxLimit);
+            this.minLimit = Math.max(1, Math.min(minLimit, this.maxLimit));
+            this.maxQueue = Math.max(0, maxQueue);
+            this.limit = this.maxLimit;
+        }
+
+        /**
+         * Takes a place in the lane, waiting behind earlier requests if it is
+         * full. Returns null once admitted; the caller must then
+         * {@link #release} it.
+         */
+        Rejection acquire() throws InterruptedException {
+            lock.lock();
+            try {
+                if (queued == 0 && inFlight < limit) {
+                    admit();
+                    return null;
+                }
+                if (queued >= maxQueue) {
+                    queueFull++;
+                    return new Rejection(Response.Status.TOO_MANY_REQUESTS, retryAfterSeconds(),
+                        "Too many " + name + " requests are waiting. Retry later");
+                }
+                queued++;
+                try {
+                    long remaining = MAX_WAIT_NANOS;
+                    while (inFlight >= limit) {
+                        if (remaining <= 0) {
+                            timedOut++;
+                            return new Rejection(Response.Status.SERVICE_UNAVAILABLE, retryAfterSeconds(),
+                                "The service is overloaded. Retry later");
+                        }
+                        remaining = released.awaitNanos(remaining);
+                    }
+                } finally {
+                    queued--;
+                }
+                admit();
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Gives back a place held for heldNanos. dbNanosPerCall is the
+         * request's average query time, or 0 if it made no query.
+         */
+        void release(long heldNanos, long dbNanosPerCall) {
+            lock.lock();
+            try {
+                inFlight--;
+                holdNanos = holdNanos == 0 ? heldNanos : holdNanos * 0.9 + heldNanos * 0.1;
+                int before = limit;
+                if (ADAPTIVE && dbNanosPerCall > 0) {
+                    sample(dbNanosPerCall);
+                }
+                if (limit > before) {
+                    released.signalAll();
+                } else {
+                    released.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void admit() {
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+        }
+
+        private void sample(long dbNanosPerCall) {
+            windowNanos += dbNanosPerCall;
+            if (++windowSamples < WINDOW_SAMPLES) {
+                return;
+            }
+            double average = windowNanos / windowSamples;
+            // The unloaded latency creeps up by 1% a window, so a database
+            // that got slower for good is eventually taken as the new normal
+            baselineNanos = baselineNanos == 0 ? average : Math.min(baselineNanos * 1.01, average);
+            if (average > baselineNanos * 2) {
+                limit = Math.max(minLimit, (int) (limit * 0.9));
+            } else if (peakInFlight >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            windowSamples = 0;
+            windowNanos = 0;
+            peakInFlight = inFlight;
+        }
+
+        // The time the queue ahead should take to drain, at least a second
+        private long retryAfterSeconds() {
+            double drainNanos = holdNanos * (queued + 1) / limit;
+            return Math.max(1, Math.min(60, (long) Math.ceil(drainNanos / 1e9)));
+        }
+
+        AdmissionStats getStats() {
+            lock.lock();
+            try {
+                return new AdmissionStats(name, limit, inFlight, queued, queueFull, timedOut);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
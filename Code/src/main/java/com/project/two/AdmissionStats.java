@@ -0,0 +1,7 @@
+package com.project.two;
+
+/**
+ * A snapshot of one {@link Admission} lane for the metrics endpoint.
+ */
+record AdmissionStats(String name, int limit, int inFlight, int queued, long queueFull, long timedOut) {
+}
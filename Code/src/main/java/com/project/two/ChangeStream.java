@@ -0,0 +1,126 @@
+package com.project.two;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.project.two.business.ChangeEvent;
+import com.project.two.business.ChangeFeed;
+import com.project.two.util.Config;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the {@link ChangeFeed} to one server-sent events subscriber, from a
+ * virtual thread of its own, so a slow client only ever holds up itself.
+ *
+ * Each change is an event named after its entity, with the change's id as
+ * the event id and {"id", "company", "entity", "action", "entity_id",
+ * "time", "data"} as its data. A subscriber that fell more than the ring's
+ * capacity behind, or resumes from an id this server never published, gets
+ * a "reset" event instead and should reload what it shows. A comment is
+ * sent after a quiet companyservices.changes.heartbeatSeconds so a closed
+ * connection is noticed.
+ */
+final class ChangeStream {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final long HEARTBEAT_NANOS =
+        TimeUnit.SECONDS.toNanos(Config.getLong("companyservices.changes.heartbeatSeconds", 15));
+    private static final int MAX_SUBSCRIBERS = Config.getInt("companyservices.changes.maxSubscribers", 10000);
+    private static final int BATCH_SIZE = 256;
+    private static final AtomicInteger SUBSCRIBERS = new AtomicInteger();
+
+    private final SseEventSink sink;
+    private final Sse sse;
+    private final ChangeFeed feed;
+    private final Set<String> entities;
+    private final Gson gson;
+
+    private ChangeStream(SseEventSink sink, Sse sse, ChangeFeed feed, Set<String> entities, Gson gson) {
+        this.sink = sink;
+        this.sse = sse;
+        this.feed = feed;
+        this.entities = entities;
+        this.gson = gson;
+    }
+
+    /**
+     * Starts sending the changes after lastId to entities of the given
+     * types. Returns false, without taking the sink, when there are already
+     * as many subscribers as allowed.
+     */
+    static boolean start(SseEventSink sink, Sse sse, ChangeFeed feed, Set<String> entities, long lastId,
+                         Gson gson) {
+        if (SUBSCRIBERS.incrementAndGet() > MAX_SUBSCRIBERS) {
+            SUBSCRIBERS.decrementAndGet();
+            return false;
+        }
+        ChangeStream stream = new ChangeStream(sink, sse, feed, entities, gson);
+        EXECUTOR.execute(() -> {
+            try {
+                stream.run(lastId);
+            } finally {
+                SUBSCRIBERS.decrementAndGet();
+            }
+        });
+        return true;
+    }
+
+    static int subscribers() {
+        return SUBSCRIBERS.get();
+    }
+
+    private void run(long lastId) {
+        try (sink) {
+            long last = lastId;
+            long lastSent = System.nanoTime();
+            while (!sink.isClosed()) {
+                ChangeFeed.Batch batch = feed.read(last, BATCH_SIZE, HEARTBEAT_NANOS);
+                if (batch.missed()) {
+                    send(sse.newEventBuilder().id(Long.toString(batch.lastId())).name("reset").data("{}").build());
+                    lastSent = System.nanoTime();
+                }
+                for (ChangeEvent change : batch.events()) {
+                    if (entities.contains(change.entity())) {
+                        send(event(change));
+                        lastSent = System.nanoTime();
+                    }
+                }
+                last = batch.lastId();
+                if (System.nanoTime() - lastSent >= HEARTBEAT_NANOS) {
+                    send(sse.newEventBuilder().comment("heartbeat").build());
+                    lastSent = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // The subscriber went away
+        }
+    }
+
+    private OutboundSseEvent event(ChangeEvent change) {
+        JsonObject data = new JsonObject();
+        data.addProperty("id", change.id());
+        data.addProperty("company", change.company());
+        data.addProperty("entity", change.entity());
+        data.addProperty("action", change.action());
+        data.addProperty("entity_id", change.entityId());
+        data.addProperty("time", change.timeMillis());
+        data.add("data", gson.toJsonTree(change.data()));
+        return sse.newEventBuilder()
+            .id(Long.toString(change.id()))
+            .name(change.entity())
+            .data(data.toString())
+            .build();
+    }
+
+    // Waits for the write, so this subscriber's events leave in order
+    private void send(OutboundSseEvent event) {
+        sink.send(event).toCompletableFuture().join();
+    }
+}
@@ -1,9 +1,29 @@
 package com.project.two;
 
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
-import java.text.SimpleDateFormat;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.core.Variant;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.*;
 import companydata.*;
@@ -13,20 +33,65 @@ import com.google.gson.JsonObject;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
+import com.project.two.business.BatchResult;
 import com.project.two.business.BusinessLayer;
+import com.project.two.business.ChangeFeed;
+import com.project.two.business.DataVersion;
+import com.project.two.business.EmployeeSearch;
+import com.project.two.business.HoursGroup;
+import com.project.two.business.HoursTotal;
+import com.project.two.business.ImportSummary;
+import com.project.two.business.Page;
+import com.project.two.data.RowCursor;
+import com.project.two.json.EntityFields;
+import com.project.two.json.FieldProjection;
+import com.project.two.json.JsonRowWriter;
+import com.project.two.metrics.RequestTrace;
+import com.project.two.protobuf.ProtobufMediaType;
+import com.project.two.util.Temporals;
 
 @Path("CompanyServices")
+@Singleton
 public class CompanyServices {
+    // Representations of the entity endpoints, JSON first so that */* gets JSON
+    private static final List<Variant> VARIANTS = List.of(
+        new Variant(MediaType.APPLICATION_JSON_TYPE, (String) null, null),
+        new Variant(ProtobufMediaType.APPLICATION_PROTOBUF_TYPE, (String) null, null));
+    private static final List<String> CHANGE_ENTITIES = List.of("department", "employee", "timecard", "company");
+
     private final BusinessLayer bl;
     private final Gson gson;
-    
-    public CompanyServices() {
-        bl = new BusinessLayer();
-        gson = new GsonBuilder()
+
+    // One resource serves every request, so these are proxies to the current request's
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Context
+    private Request request;
+
+    /**
+     * Created once, with the BusinessLayer and Gson that
+     * {@link CompanyServicesApplication} binds; keeps no state between
+     * requests.
+     */
+    @Inject
+    public CompanyServices(BusinessLayer bl, Gson gson) {
+        this.bl = bl;
+        this.gson = gson;
+    }
+
+    /**
+     * Gson set up with the date formats the service reads and writes.
+     * {@link CompanyServicesApplication} builds the one the resources and
+     * providers share; public so the benchmarks module serializes exactly
+     * what the endpoints do.
+     */
+    public static Gson createGson() {
+        return new GsonBuilder()
         .registerTypeAdapter(java.sql.Date.class, new TypeAdapter<java.sql.Date>() {
             @Override
             public void write(JsonWriter out, java.sql.Date value) throws IOException {
-                out.value(value != null ? new SimpleDateFormat("yyyy-MM-dd").format(value) : null);
+                out.value(value != null ? Temporals.formatDate(value.getTime()) : null);
             }
 
             @Override
@@ -42,7 +107,7 @@ public class CompanyServices {
         .registerTypeAdapter(Timestamp.class, new TypeAdapter<Timestamp>() {
             @Override
             public void write(JsonWriter out, Timestamp value) throws IOException {
-                out.value(value != null ? new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(value) : null);
+                out.value(value != null ? Temporals.formatDateTime(value.getTime()) : null);
             }
 
             @Override
@@ -67,137 +132,397 @@ public class CompanyServices {
     // Company Operations
     @DELETE
     @Path("/company")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String deleteCompany(@QueryParam("company") String companyName) {
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void deleteCompany(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String companyName) {
+        submit(asyncResponse, () -> {
+            try {
+                bl.deleteCompany(companyName);
+                return new Reply.Success(companyName + "'s information deleted.");
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    // Every department, employee and timecard of the company as
+    // newline-delimited JSON; errors are sent as JSON
+    @GET
+    @Path("/company/export")
+    @Produces({NdjsonRecords.APPLICATION_NDJSON, MediaType.APPLICATION_JSON})
+    public void exportCompany(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String companyName) {
+        submit(asyncResponse, () -> {
+            try {
+                return Response.ok(new Reply.Records(bl.exportCompany(companyName)))
+                    .type(NdjsonRecords.APPLICATION_NDJSON)
+                    .build();
+            } catch (Exception e) {
+                return Response.ok(createErrorResponse(e.getMessage()))
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .build();
+            }
+        });
+    }
+
+    // Adds the records of an export to the company. The body is spooled
+    // before the import starts, so the transaction never waits on the
+    // client; once it has arrived the import is one transaction, and the
+    // reply is its commit or its error, after which nothing was imported
+    @POST
+    @Path("/company/import")
+    @Consumes(NdjsonRecords.APPLICATION_NDJSON)
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void importCompany(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String companyName,
+            InputStream body) {
+        submit(asyncResponse, body, spooled -> {
+            try (InputStream records = spooled.open()) {
+                ImportSummary summary = bl.importCompany(companyName, new NdjsonRecords(records, gson));
+                return new Reply.Success("Imported " + summary.departments() + " departments, "
+                    + summary.employees() + " employees and " + summary.timecards() + " timecards into "
+                    + companyName + ".");
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    // Change feed
+    // Server-sent events for every committed change, optionally only those
+    // of the entity types listed in entity. A reconnecting client resumes
+    // after the Last-Event-ID it sends. Errors are sent as an "error" event
+    // and end the stream.
+    @GET
+    @Path("/changes")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void getChanges(
+            @Context SseEventSink sink,
+            @Context Sse sse,
+            @QueryParam("company") String company,
+            @QueryParam("entity") String entity,
+            @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String lastEventId) {
         try {
-            bl.deleteCompany(companyName);
-            JsonObject responseJson = new JsonObject();
-            responseJson.addProperty("success", companyName + "'s information deleted.");
-            return responseJson.toString();
+            ChangeFeed feed = bl.getChangeFeed(company);
+            Set<String> entities = new HashSet<>(CHANGE_ENTITIES);
+            if (entity != null && !entity.isBlank()) {
+                entities.clear();
+                for (String name : entity.split(",")) {
+                    if (!CHANGE_ENTITIES.contains(name.trim())) {
+                        throw new Exception("Entity must be one of " + String.join(", ", CHANGE_ENTITIES));
+                    }
+                    entities.add(name.trim());
+                }
+            }
+            long lastId = feed.newest();
+            if (lastEventId != null) {
+                try {
+                    lastId = Long.parseLong(lastEventId.trim());
+                } catch (NumberFormatException e) {
+                    // Not one of ours: the client is sent a reset
+                    lastId = -1;
+                }
+            }
+            if (!ChangeStream.start(sink, sse, feed, entities, lastId, gson)) {
+                throw new Exception("Too many subscribers. Retry later");
+            }
         } catch (Exception e) {
-            JsonObject errorJson = new JsonObject();
-            errorJson.addProperty("error", e.getMessage());
-            return errorJson.toString();
+            JsonObject error = new JsonObject();
+            error.addProperty("error", e.getMessage());
+            try (sink) {
+                sink.send(sse.newEventBuilder().name("error").data(error.toString()).build());
+            }
         }
     }
 
     // Department Operations
     @GET
     @Path("/department")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String getDepartment(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getDepartment(
+            @Suspended AsyncResponse asyncResponse,
             @QueryParam("company") String companyName,
-            @QueryParam("dept_id") int deptId) {
-        try {
-            Department dept = bl.getDepartment(companyName, deptId);
-            if (dept != null) {
-                return gson.toJson(dept);
-            } else {
-                return createErrorResponse("Department not found");
-            }
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
+            @QueryParam("dept_id") int deptId,
+            @QueryParam("fields") String fields) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion(companyName);
+        if (notModified(asyncResponse, version, type)) {
+            return;
         }
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Department> projection = EntityFields.DEPARTMENT.select(fields);
+                Department dept = bl.getDepartment(companyName, deptId);
+                if (dept != null) {
+                    return versioned(Response.ok(new Reply.Entity<>(null, dept, projection)), version, type);
+                } else {
+                    return createErrorResponse("Department not found");
+                }
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @GET
     @Path("/departments")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String getAllDepartments(@QueryParam("company") String companyName) {
-        try {
-            List<Department> departments = bl.getAllDepartments(companyName);
-            return gson.toJson(departments);
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getAllDepartments(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String companyName,
+            @QueryParam("after") @DefaultValue("0") int after,
+            @QueryParam("limit") @DefaultValue("0") int limit,
+            @QueryParam("fields") String fields,
+            @Context UriInfo uriInfo) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion(companyName);
+        if (notModified(asyncResponse, version, type)) {
+            return;
         }
+        UriBuilder requestUri = uriInfo.getRequestUriBuilder();
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Department> projection = EntityFields.DEPARTMENT.select(fields);
+                Page<Department> departments = bl.getDepartmentPage(companyName, after, limit);
+                return pageResponse(departments, Department.class, projection, requestUri, version, type);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @PUT
     @Path("/department")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public String updateDepartment(String jsonDepartment) {
-        try {
-            Department dept = gson.fromJson(jsonDepartment, Department.class);
-            Department updated = bl.updateDepartment(dept);
-            JsonObject successJson = new JsonObject();
-            successJson.add("success", gson.toJsonTree(updated));
-            return successJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
-        }
+    @Consumes({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void updateDepartment(
+            @Suspended AsyncResponse asyncResponse,
+            RequestBody body) {
+        submit(asyncResponse, () -> {
+            try {
+                Department dept = body.read(Department.class);
+                Department updated = bl.updateDepartment(dept);
+                return new Reply.Stored(updated);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @POST
     @Path("/department")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String createDepartment(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void createDepartment(
+            @Suspended AsyncResponse asyncResponse,
             @FormParam("company") String company,
             @FormParam("dept_name") String deptName,
             @FormParam("dept_no") String deptNo,
             @FormParam("location") String location) {
-        try {
-            Department dept = new Department(company, deptName, deptNo, location);
-            Department created = bl.insertDepartment(dept);
-            JsonObject successJson = new JsonObject();
-            successJson.add("success", gson.toJsonTree(created));
-            return successJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
-        }
+        submit(asyncResponse, () -> {
+            try {
+                Department dept = new Department(company, deptName, deptNo, location);
+                Department created = bl.insertDepartment(dept);
+                return new Reply.Stored(created);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    @POST
+    @Path("/departments")
+    @Consumes({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void createDepartments(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String company,
+            RequestBody body) {
+        submit(asyncResponse, () -> {
+            try {
+                List<Department> departments = body.readList(Department.class);
+                List<BatchResult<Department>> results = bl.insertDepartments(company, departments);
+                return new Reply.Batch<>(results);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @DELETE
     @Path("/department")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String deleteDepartment(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void deleteDepartment(
+            @Suspended AsyncResponse asyncResponse,
             @QueryParam("company") String company,
             @QueryParam("dept_id") int deptId) {
-        try {
-            bl.deleteDepartment(company, deptId);
-            JsonObject responseJson = new JsonObject();
-            responseJson.addProperty("success", "Department " + deptId + " from " + company + " deleted.");
-            return responseJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
-        }
+        submit(asyncResponse, () -> {
+            try {
+                bl.deleteDepartment(company, deptId);
+                return new Reply.Success("Department " + deptId + " from " + company + " deleted.");
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     // Employee Operations
     @GET
     @Path("/employee")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String getEmployee(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getEmployee(
+            @Suspended AsyncResponse asyncResponse,
             @QueryParam("company") String company,
-            @QueryParam("emp_id") int empId) {
-        try {
-            Employee emp = bl.getEmployee(empId);
-            if (emp != null) {
-                return gson.toJson(emp);
-            } else {
-                return createErrorResponse("Employee not found");
-            }
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
+            @QueryParam("emp_id") int empId,
+            @QueryParam("fields") String fields) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion();
+        if (notModified(asyncResponse, version, type)) {
+            return;
         }
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Employee> projection = EntityFields.EMPLOYEE.select(fields);
+                Employee emp = bl.getEmployee(empId);
+                if (emp != null) {
+                    return versioned(Response.ok(new Reply.Entity<>(null, emp, projection)), version, type);
+                } else {
+                    return createErrorResponse("Employee not found");
+                }
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @GET
     @Path("/employees")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String getAllEmployees(@QueryParam("company") String company) {
-        try {
-            List<Employee> employees = bl.getAllEmployees(company);
-            return gson.toJson(employees);
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getAllEmployees(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String company,
+            @QueryParam("after") @DefaultValue("0") int after,
+            @QueryParam("limit") @DefaultValue("0") int limit,
+            @QueryParam("fields") String fields,
+            @Context UriInfo uriInfo) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion(company);
+        if (notModified(asyncResponse, version, type)) {
+            return;
+        }
+        UriBuilder requestUri = uriInfo.getRequestUriBuilder();
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Employee> projection = EntityFields.EMPLOYEE.select(fields);
+                Page<Employee> employees = bl.getEmployeePage(company, after, limit);
+                return pageResponse(employees, Employee.class, projection, requestUri, version, type);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    // The manager followed by everyone below them, level by level; depth
+    // limits the levels, 0 for all of them
+    @GET
+    @Path("/employee/reports")
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getReports(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String company,
+            @QueryParam("emp_id") int empId,
+            @QueryParam("depth") @DefaultValue("0") int depth,
+            @QueryParam("fields") String fields) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion(company);
+        if (notModified(asyncResponse, version, type)) {
+            return;
+        }
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Employee> projection = EntityFields.EMPLOYEE.select(fields);
+                List<Employee> reports = bl.getReports(company, empId, depth);
+                return versioned(Response.ok(new Reply.Rows<>(RowCursor.of(reports), Employee.class, projection)),
+                    version, type);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    // The employee followed by their managers up to the top
+    @GET
+    @Path("/employee/managers")
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getManagers(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String company,
+            @QueryParam("emp_id") int empId,
+            @QueryParam("fields") String fields) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion(company);
+        if (notModified(asyncResponse, version, type)) {
+            return;
+        }
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Employee> projection = EntityFields.EMPLOYEE.select(fields);
+                List<Employee> managers = bl.getManagers(company, empId);
+                return versioned(Response.ok(new Reply.Rows<>(RowCursor.of(managers), Employee.class, projection)),
+                    version, type);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    // Employees matching every filter given; salary and hire date ranges
+    // include both ends. sort is id, name, salary or hire_date, prefixed
+    // with - for descending, and limit caps the matches as for a page
+    @GET
+    @Path("/employees/search")
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void searchEmployees(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String company,
+            @QueryParam("job") String job,
+            @QueryParam("dept_id") Integer deptId,
+            @QueryParam("mng_id") Integer mngId,
+            @QueryParam("min_salary") Double minSalary,
+            @QueryParam("max_salary") Double maxSalary,
+            @QueryParam("hired_from") String hiredFrom,
+            @QueryParam("hired_to") String hiredTo,
+            @QueryParam("sort") String sort,
+            @QueryParam("limit") @DefaultValue("0") int limit,
+            @QueryParam("fields") String fields) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion(company);
+        if (notModified(asyncResponse, version, type)) {
+            return;
         }
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Employee> projection = EntityFields.EMPLOYEE.select(fields);
+                EmployeeSearch search = new EmployeeSearch(job, deptId, mngId, minSalary, maxSalary,
+                    hiredFrom != null ? Temporals.parseDate(hiredFrom) : null,
+                    hiredTo != null ? Temporals.parseDate(hiredTo) : null,
+                    EmployeeSearch.parseSort(sort), EmployeeSearch.isDescending(sort), limit);
+                List<Employee> employees = bl.searchEmployees(company, search);
+                return versioned(Response.ok(new Reply.Rows<>(RowCursor.of(employees), Employee.class, projection)),
+                    version, type);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @POST
     @Path("/employee")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String createEmployee(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void createEmployee(
+            @Suspended AsyncResponse asyncResponse,
             @FormParam("company") String company,
             @FormParam("emp_name") String emp_name,
             @FormParam("emp_no") String emp_no,
@@ -206,151 +531,361 @@ public class CompanyServices {
             @FormParam("salary") double salary,
             @FormParam("dept_id") int dept_id,
             @FormParam("mng_id") int mng_id) {
-        try {
-            Date utilDate = new SimpleDateFormat("yyyy-MM-dd").parse(hireDateStr);
-            java.sql.Date hire_date = new java.sql.Date(utilDate.getTime());
-            Employee emp = new Employee(
-                emp_name,
-                emp_no,
-                hire_date,
-                job,
-                salary,
-                dept_id,
-                mng_id
-            );
-
-            Employee created = bl.insertEmployee(emp);
-            JsonObject successJson = new JsonObject();
-            successJson.add("success", gson.toJsonTree(created));
-            return successJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
-        }
+        submit(asyncResponse, () -> {
+            try {
+                java.sql.Date hire_date = Temporals.parseDate(hireDateStr);
+                Employee emp = new Employee(
+                    emp_name,
+                    emp_no,
+                    hire_date,
+                    job,
+                    salary,
+                    dept_id,
+                    mng_id
+                );
+
+                Employee created = bl.insertEmployee(emp);
+                return new Reply.Stored(created);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    @POST
+    @Path("/employees")
+    @Consumes({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void createEmployees(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String company,
+            RequestBody body) {
+        submit(asyncResponse, () -> {
+            try {
+                List<Employee> employees = body.readList(Employee.class);
+                List<BatchResult<Employee>> results = bl.insertEmployees(company, employees);
+                return new Reply.Batch<>(results);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @PUT
     @Path("/employee")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public String updateEmployee(String jsonEmployee) {
-        try {
-            Employee emp = gson.fromJson(jsonEmployee, Employee.class);
-            Employee updated = bl.updateEmployee(emp);
-            JsonObject successJson = new JsonObject();
-            successJson.add("success", gson.toJsonTree(updated));
-            return successJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
-        }
+    @Consumes({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void updateEmployee(
+            @Suspended AsyncResponse asyncResponse,
+            RequestBody body) {
+        submit(asyncResponse, () -> {
+            try {
+                Employee emp = body.read(Employee.class);
+                Employee updated = bl.updateEmployee(emp);
+                return new Reply.Stored(updated);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @DELETE
     @Path("/employee")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String deleteEmployee(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void deleteEmployee(
+            @Suspended AsyncResponse asyncResponse,
             @QueryParam("company") String company,
             @QueryParam("emp_id") int empId) {
-        try {
-            bl.deleteEmployee(empId);
-            JsonObject responseJson = new JsonObject();
-            responseJson.addProperty("success", "Employee " + empId + " deleted.");
-            return responseJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
-        }
+        submit(asyncResponse, () -> {
+            try {
+                bl.deleteEmployee(empId);
+                return new Reply.Success("Employee " + empId + " deleted.");
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     // Timecard Operations
     @GET
     @Path("/timecard")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String getTimecard(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getTimecard(
+            @Suspended AsyncResponse asyncResponse,
             @QueryParam("company") String company,
-            @QueryParam("timecard_id") int timecardId) {
-        try {
-            Timecard timecard = bl.getTimecard(timecardId);
-            if (timecard != null) {
-                JsonObject responseJson = new JsonObject();
-                responseJson.add("timecard", gson.toJsonTree(timecard));
-                return responseJson.toString();
-            } else {
-                return createErrorResponse("Timecard not found");
-            }
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
+            @QueryParam("timecard_id") int timecardId,
+            @QueryParam("fields") String fields) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion();
+        if (notModified(asyncResponse, version, type)) {
+            return;
         }
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Timecard> projection = EntityFields.TIMECARD.select(fields);
+                Timecard timecard = bl.getTimecard(timecardId);
+                if (timecard != null) {
+                    return versioned(Response.ok(new Reply.Entity<>("timecard", timecard, projection)), version, type);
+                } else {
+                    return createErrorResponse("Timecard not found");
+                }
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @GET
     @Path("/timecards")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String getTimecards(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getTimecards(
+            @Suspended AsyncResponse asyncResponse,
             @QueryParam("company") String company,
-            @QueryParam("emp_id") int empId) {
-        try {
-            List<Timecard> timecards = bl.getAllTimecards(empId);
-            return gson.toJson(timecards);
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
+            @QueryParam("emp_id") int empId,
+            @QueryParam("after") @DefaultValue("0") int after,
+            @QueryParam("limit") @DefaultValue("0") int limit,
+            @QueryParam("fields") String fields,
+            @Context UriInfo uriInfo) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion();
+        if (notModified(asyncResponse, version, type)) {
+            return;
         }
+        UriBuilder requestUri = uriInfo.getRequestUriBuilder();
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<Timecard> projection = EntityFields.TIMECARD.select(fields);
+                Page<Timecard> timecards = bl.getTimecardPage(empId, after, limit);
+                return pageResponse(timecards, Timecard.class, projection, requestUri, version, type);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @POST
     @Path("/timecard")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String createTimecard(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void createTimecard(
+            @Suspended AsyncResponse asyncResponse,
             @FormParam("company") String company,
             @FormParam("emp_id") int empId,
             @FormParam("start_time") String startTimeStr,
             @FormParam("end_time") String endTimeStr) {
-        try {
-            Timestamp startTime = Timestamp.valueOf(startTimeStr);
-            Timestamp endTime = Timestamp.valueOf(endTimeStr);
-            Timecard timecard = new Timecard(startTime, endTime, empId);
-            Timecard created = bl.insertTimecard(timecard);
-            JsonObject successJson = new JsonObject();
-            successJson.add("success", gson.toJsonTree(created));
-            return successJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
-        }
+        submit(asyncResponse, () -> {
+            try {
+                Timestamp startTime = Timestamp.valueOf(startTimeStr);
+                Timestamp endTime = Timestamp.valueOf(endTimeStr);
+                Timecard timecard = new Timecard(startTime, endTime, empId);
+                Timecard created = bl.insertTimecard(timecard);
+                return new Reply.Stored(created);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    @POST
+    @Path("/timecards")
+    @Consumes({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void createTimecards(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String company,
+            RequestBody body) {
+        submit(asyncResponse, () -> {
+            try {
+                List<Timecard> timecards = body.readList(Timecard.class);
+                List<BatchResult<Timecard>> results = bl.insertTimecards(company, timecards);
+                return new Reply.Batch<>(results);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @PUT
     @Path("/timecard")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
-    public String updateTimecard(String jsonTimecard) {
-        try {
-            Timecard timecard = gson.fromJson(jsonTimecard, Timecard.class);
-            Timecard updated = bl.updateTimecard(timecard);
-            JsonObject successJson = new JsonObject();
-            successJson.add("success", gson.toJsonTree(updated));
-            return successJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
-        }
+    @Consumes({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void updateTimecard(
+            @Suspended AsyncResponse asyncResponse,
+            RequestBody body) {
+        submit(asyncResponse, () -> {
+            try {
+                Timecard timecard = body.read(Timecard.class);
+                Timecard updated = bl.updateTimecard(timecard);
+                return new Reply.Stored(updated);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
     }
 
     @DELETE
     @Path("/timecard")
-    @Produces(MediaType.APPLICATION_JSON)
-    public String deleteTimecard(
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void deleteTimecard(
+            @Suspended AsyncResponse asyncResponse,
             @QueryParam("company") String company,
             @QueryParam("timecard_id") int timecardId) {
+        submit(asyncResponse, () -> {
+            try {
+                bl.deleteTimecard(timecardId);
+                return new Reply.Success("Timecard " + timecardId + " deleted.");
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    // Reports
+    @GET
+    @Path("/hours")
+    @Produces({MediaType.APPLICATION_JSON, ProtobufMediaType.APPLICATION_PROTOBUF})
+    public void getHours(
+            @Suspended AsyncResponse asyncResponse,
+            @QueryParam("company") String company,
+            @QueryParam("from") String fromStr,
+            @QueryParam("to") String toStr,
+            @QueryParam("group") String group,
+            @QueryParam("dept_id") @DefaultValue("0") int deptId,
+            @QueryParam("emp_id") @DefaultValue("0") int empId,
+            @QueryParam("fields") String fields) {
+        MediaType type = negotiate();
+        DataVersion version = bl.getDataVersion(company);
+        if (notModified(asyncResponse, version, type)) {
+            return;
+        }
+        submit(asyncResponse, () -> {
+            try {
+                FieldProjection<HoursTotal> projection = EntityFields.HOURS.select(fields);
+                java.sql.Date from = Temporals.parseDate(fromStr);
+                java.sql.Date to = Temporals.parseDate(toStr);
+                List<HoursTotal> hours = bl.getHours(company, from, to, HoursGroup.parse(group), deptId, empId);
+                Reply.Rows<HoursTotal> rows = new Reply.Rows<>(RowCursor.of(hours), HoursTotal.class,
+                    projection != null ? projection : EntityFields.HOURS.all());
+                return versioned(Response.ok(rows), version, type);
+            } catch (Exception e) {
+                return createErrorResponse(e.getMessage());
+            }
+        });
+    }
+
+    // The body stays a plain JSON array, or delimited messages for protobuf;
+    // the cursor of the next page, if any, is sent in the X-Next-Cursor
+    // header and as a Link header
+    private <T> Response pageResponse(Page<T> page, Class<T> rowType, FieldProjection<T> projection,
+                                      UriBuilder requestUri, DataVersion version, MediaType type) {
+        Response.ResponseBuilder response = Response.ok(new Reply.Rows<>(page.rows(), rowType, projection));
+        if (page.hasNext()) {
+            response.header("X-Next-Cursor", page.nextAfter());
+            response.link(requestUri
+                .replaceQueryParam("after", page.nextAfter())
+                .build(), "next");
+        }
+        return versioned(response, version, type);
+    }
+
+    // Conditional GET
+    // Answers a request that already holds the current version with 304 Not
+    // Modified on the container thread, before any query or serialization.
+    // Returns false when the request still has to be served.
+    private boolean notModified(AsyncResponse asyncResponse, DataVersion version, MediaType type) {
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(
+            new Date(version.modifiedMillis()), entityTag(version, type));
+        if (notModified == null) {
+            return false;
+        }
+        asyncResponse.resume(notModified
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+            .build());
+        return true;
+    }
+
+    // Only successful bodies are tagged, so a client never revalidates a
+    // transient error into a 304. Clients may store them but must revalidate
+    // before each use.
+    private static Response versioned(Response.ResponseBuilder response, DataVersion version, MediaType type) {
+        return response
+            .type(type)
+            .tag(entityTag(version, type))
+            .lastModified(new Date(version.modifiedMillis()))
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+            .build();
+    }
+
+    // Each representation of a version has its own tag
+    private static EntityTag entityTag(DataVersion version, MediaType type) {
+        return new EntityTag(ProtobufMediaType.APPLICATION_PROTOBUF_TYPE.isCompatible(type)
+            ? version.tag() + "-pb"
+            : version.tag());
+    }
+
+    // The representation a GET will send, decided up front because the
+    // entity tag depends on it; JSON unless the client prefers protobuf
+    private MediaType negotiate() {
+        Variant variant = request.selectVariant(VARIANTS);
+        return variant != null ? variant.getMediaType() : MediaType.APPLICATION_JSON_TYPE;
+    }
+
+    /**
+     * Writes the rows as a JSON array and closes the cursor. Each row is
+     * written as it is read from the database, so neither the result set nor
+     * the JSON text is held in memory.
+     */
+    public static <T> void writeJsonArray(Gson gson, RowCursor<T> rows, Class<T> type, OutputStream output) throws IOException {
+        writeJsonArray(gson, rows, (row, writer) -> gson.toJson(row, type, writer), output);
+    }
+
+    /**
+     * Writes the rows with the given row writer, such as a field projection.
+     */
+    public static <T> void writeJsonArray(Gson gson, RowCursor<T> rows, JsonRowWriter<T> rowWriter,
+                                          OutputStream output) throws IOException {
+        try (RowCursor<T> cursor = rows;
+             JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                 new OutputStreamWriter(output, StandardCharsets.UTF_8)))) {
+            writer.beginArray();
+            for (T row = cursor.next(); row != null; row = cursor.next()) {
+                rowWriter.write(row, writer);
+            }
+            writer.endArray();
+        } catch (SQLException e) {
+            throw new IOException("Failed to read rows", e);
+        }
+    }
+
+    // Runs the method body off the container thread, traced under the
+    // resource method's name and admitted as a read or a write
+    private void submit(AsyncResponse asyncResponse, RequestExecutor.Work work) {
+        RequestExecutor.submit(asyncResponse, resourceInfo.getResourceMethod().getName(), request.getMethod(), work);
+    }
+
+    // The same for a write that reads its whole body, spooled before admission
+    private void submit(AsyncResponse asyncResponse, InputStream body, RequestExecutor.UploadWork work) {
+        RequestExecutor.submit(asyncResponse, resourceInfo.getResourceMethod().getName(), request.getMethod(), body,
+            work);
+    }
+
+    /**
+     * Wraps a stored record as {"success": record}.
+     */
+    public static String createSuccessResponse(Gson gson, Object value) {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.SERIALIZE);
         try {
-            bl.deleteTimecard(timecardId);
-            JsonObject responseJson = new JsonObject();
-            responseJson.addProperty("success", "Timecard " + timecardId + " deleted.");
-            return responseJson.toString();
-        } catch (Exception e) {
-            return createErrorResponse(e.getMessage());
+            JsonObject response = new JsonObject();
+            response.add("success", gson.toJsonTree(value));
+            return response.toString();
+        } finally {
+            RequestTrace.exit(previous);
         }
     }
 
-    private String createErrorResponse(String message) {
-        JsonObject response = new JsonObject();
-        response.addProperty("error", message);
-        return response.toString();
+    private Reply createErrorResponse(String message) {
+        RequestTrace.markFailed();
+        return new Reply.Failure(message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.project.two;
+
+import com.google.gson.Gson;
+import com.project.two.business.BusinessLayer;
+import org.glassfish.jersey.internal.inject.AbstractBinder;
+import org.glassfish.jersey.server.ResourceConfig;
+
+/**
+ * The service's resources and providers. One BusinessLayer and one Gson are
+ * bound here and injected into the singleton CompanyServices and the
+ * providers, so none of them is rebuilt per call; web.xml and the load
+ * test's embedded server both start from here.
+ */
+public final class CompanyServicesApplication extends ResourceConfig {
+
+    public CompanyServicesApplication() {
+        BusinessLayer bl = new BusinessLayer();
+        Gson gson = CompanyServices.createGson();
+        register(new AbstractBinder() {
+            @Override
+            protected void configure() {
+                bind(bl).to(BusinessLayer.class);
+                bind(gson).to(Gson.class);
+            }
+        });
+        register(CompanyServices.class);
+        register(MetricsResource.class);
+
+        register(JsonBodyReader.class);
+        register(JsonReplyWriter.class);
+        register(NdjsonReplyWriter.class);
+        register(ProtobufBodyReader.class);
+        register(ProtobufReplyWriter.class);
+    }
+}
@@ -0,0 +1,58 @@
+package com.project.two;
+
+import com.google.gson.Gson;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a JSON {@link RequestBody}: a record, or an array of records.
+ */
+@Provider
+@Consumes(MediaType.APPLICATION_JSON)
+public class JsonBodyReader implements MessageBodyReader<RequestBody> {
+    private final Gson gson;
+
+    @Inject
+    public JsonBodyReader(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == RequestBody.class;
+    }
+
+    @Override
+    public RequestBody readFrom(Class<RequestBody> type, Type genericType, Annotation[] annotations,
+                                MediaType mediaType, MultivaluedMap<String, String> httpHeaders,
+                                InputStream entityStream) throws IOException {
+        String charset = mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+        String text = new String(entityStream.readAllBytes(),
+            charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8);
+        return new RequestBody() {
+            @Override
+            public <T> T read(Class<T> type) {
+                return gson.fromJson(text, type);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> readList(Class<T> type) {
+                T[] items = gson.fromJson(text, (Class<T[]>) type.arrayType());
+                return items == null ? List.of() : Arrays.asList(items);
+            }
+        };
+    }
+}
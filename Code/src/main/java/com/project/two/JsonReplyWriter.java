@@ -0,0 +1,100 @@
+package com.project.two;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.project.two.business.BatchResult;
+import com.project.two.json.FieldProjection;
+import com.project.two.json.JsonRowWriter;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renders a {@link Reply} as the JSON the service has always sent.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class JsonReplyWriter implements MessageBodyWriter<Reply> {
+    private final Gson gson;
+
+    @Inject
+    public JsonReplyWriter(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return Reply.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Reply reply, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        if (reply instanceof Reply.Rows<?> rows) {
+            writeRows(rows, entityStream);
+        } else {
+            entityStream.write(toJson(reply).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String toJson(Reply reply) throws IOException {
+        if (reply instanceof Reply.Entity<?> entity) {
+            return toJson(entity);
+        } else if (reply instanceof Reply.Stored stored) {
+            return CompanyServices.createSuccessResponse(gson, stored.value());
+        } else if (reply instanceof Reply.Success success) {
+            JsonObject response = new JsonObject();
+            response.addProperty("success", success.message());
+            return response.toString();
+        } else if (reply instanceof Reply.Failure failure) {
+            JsonObject response = new JsonObject();
+            response.addProperty("error", failure.message());
+            return response.toString();
+        } else {
+            return toJson((Reply.Batch<?>) reply);
+        }
+    }
+
+    private <T> String toJson(Reply.Entity<T> entity) throws IOException {
+        FieldProjection<T> projection = entity.projection();
+        if (entity.name() == null) {
+            return projection == null ? gson.toJson(entity.value()) : projection.toJson(gson, entity.value());
+        } else if (projection != null) {
+            return "{\"" + entity.name() + "\":" + projection.toJson(gson, entity.value()) + "}";
+        }
+        JsonObject response = new JsonObject();
+        response.add(entity.name(), gson.toJsonTree(entity.value()));
+        return response.toString();
+    }
+
+    private <T> String toJson(Reply.Batch<T> batch) {
+        JsonArray response = new JsonArray(batch.results().size());
+        for (BatchResult<T> result : batch.results()) {
+            JsonObject item = new JsonObject();
+            if (result.isSuccess()) {
+                item.add("success", gson.toJsonTree(result.value()));
+            } else {
+                item.addProperty("error", result.error());
+            }
+            response.add(item);
+        }
+        return response.toString();
+    }
+
+    // A plain JSON array; the cursor of the next page goes in the headers
+    private <T> void writeRows(Reply.Rows<T> rows, OutputStream output) throws IOException {
+        JsonRowWriter<T> rowWriter = rows.projection() != null
+            ? rows.projection()
+            : (row, writer) -> gson.toJson(row, rows.type(), writer);
+        CompanyServices.writeJsonArray(gson, rows.rows(), rowWriter, output);
+    }
+}
@@ -0,0 +1,98 @@
+package com.project.two;
+
+import com.project.two.business.BusinessLayer;
+import com.project.two.business.CacheStats;
+import com.project.two.business.CoalesceStats;
+import com.project.two.data.ConnectionPool;
+import com.project.two.metrics.Metrics;
+import com.project.two.metrics.PrometheusText;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import java.util.List;
+
+/**
+ * Request, admission, operation, connection pool, change feed, cache and
+ * coalesced read metrics in the Prometheus text format, for scraping at
+ * /webapi/metrics.
+ */
+@Path("metrics")
+public class MetricsResource {
+
+    @GET
+    @Produces(PrometheusText.CONTENT_TYPE)
+    public String getMetrics() {
+        PrometheusText out = new PrometheusText();
+        Metrics.writeTo(out);
+
+        List<AdmissionStats> lanes = Admission.getStats();
+        out.family("companyservices_admission_limit", "gauge", "Requests each lane lets run at once.");
+        for (AdmissionStats lane : lanes) {
+            out.sample("companyservices_admission_limit", lane.limit(), "lane", lane.name());
+        }
+        out.family("companyservices_admission_in_flight", "gauge", "Requests running in each lane.");
+        for (AdmissionStats lane : lanes) {
+            out.sample("companyservices_admission_in_flight", lane.inFlight(), "lane", lane.name());
+        }
+        out.family("companyservices_admission_queued", "gauge", "Requests waiting for a place in each lane.");
+        for (AdmissionStats lane : lanes) {
+            out.sample("companyservices_admission_queued", lane.queued(), "lane", lane.name());
+        }
+        out.family("companyservices_admission_rejected_total", "counter", "Requests turned away by status.");
+        for (AdmissionStats lane : lanes) {
+            out.sample("companyservices_admission_rejected_total", lane.queueFull(), "lane", lane.name(), "status", "429")
+                .sample("companyservices_admission_rejected_total", lane.timedOut(), "lane", lane.name(), "status", "503");
+        }
+
+        // Scraping does not open the pool before the first request does
+        ConnectionPool pool = ConnectionPool.getInstanceIfCreated();
+        if (pool != null) {
+            ConnectionPool.PoolStats stats = pool.getStats();
+            out.family("companyservices_db_pool_connections", "gauge", "Pooled MySQL connections by state.")
+                .sample("companyservices_db_pool_connections", stats.active(), "state", "active")
+                .sample("companyservices_db_pool_connections", stats.idle(), "state", "idle");
+            out.family("companyservices_db_pool_max_connections", "gauge", "Configured maximum pool size.")
+                .sample("companyservices_db_pool_max_connections", stats.maxSize());
+            out.family("companyservices_db_pool_waiting_threads", "gauge", "Threads waiting for a connection.")
+                .sample("companyservices_db_pool_waiting_threads", stats.waiting());
+            out.family("companyservices_db_pool_borrows_total", "counter", "Connections handed out by the pool.")
+                .sample("companyservices_db_pool_borrows_total", stats.borrowed());
+            out.family("companyservices_db_pool_timeouts_total", "counter", "Borrows that gave up waiting.")
+                .sample("companyservices_db_pool_timeouts_total", stats.timeouts());
+            out.family("companyservices_db_pool_wait_seconds_total", "counter", "Time spent borrowing connections.")
+                .sample("companyservices_db_pool_wait_seconds_total", stats.totalWaitMillis() / 1e3);
+        }
+
+        out.family("companyservices_change_subscribers", "gauge", "Clients subscribed to the change feed.")
+            .sample("companyservices_change_subscribers", ChangeStream.subscribers());
+
+        List<CacheStats> caches = BusinessLayer.getCacheStats();
+        out.family("companyservices_cache_requests_total", "counter", "Cache lookups by result.");
+        for (CacheStats cache : caches) {
+            out.sample("companyservices_cache_requests_total", cache.hits(), "cache", cache.name(), "result", "hit")
+                .sample("companyservices_cache_requests_total", cache.misses(), "cache", cache.name(), "result", "miss");
+        }
+        out.family("companyservices_cache_evictions_total", "counter", "Entries dropped for size or age.");
+        for (CacheStats cache : caches) {
+            out.sample("companyservices_cache_evictions_total", cache.evictions(), "cache", cache.name());
+        }
+        out.family("companyservices_cache_entries", "gauge", "Entries currently cached.");
+        for (CacheStats cache : caches) {
+            out.sample("companyservices_cache_entries", cache.size(), "cache", cache.name());
+        }
+
+        List<CoalesceStats> reads = BusinessLayer.getCoalesceStats();
+        out.family("companyservices_coalesced_reads_total", "counter",
+            "Reads that ran a query, shared one in flight or were turned away.");
+        for (CoalesceStats read : reads) {
+            out.sample("companyservices_coalesced_reads_total", read.loads(), "read", read.name(), "result", "load")
+                .sample("companyservices_coalesced_reads_total", read.joined(), "read", read.name(), "result", "joined")
+                .sample("companyservices_coalesced_reads_total", read.rejected(), "read", read.name(), "result", "rejected");
+        }
+        out.family("companyservices_coalesced_reads_in_flight", "gauge", "Queries currently shared by readers.");
+        for (CoalesceStats read : reads) {
+            out.sample("companyservices_coalesced_reads_in_flight", read.inFlight(), "read", read.name());
+        }
+        return out.toString();
+    }
+}
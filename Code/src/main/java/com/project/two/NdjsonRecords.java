@@ -0,0 +1,81 @@
+package com.project.two;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.project.two.business.ImportRecords;
+import companydata.*;
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Reads the records of a company import from newline-delimited JSON, one
+ * line at a time: {"department": {...}}, {"employee": {...}} or
+ * {"timecard": {...}}, the lines a company export writes. Blank lines are
+ * skipped.
+ */
+final class NdjsonRecords implements ImportRecords {
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final Map<String, Class<?>> TYPES = Map.of(
+        "department", Department.class,
+        "employee", Employee.class,
+        "timecard", Timecard.class);
+
+    private final BufferedReader reader;
+    private final Gson gson;
+    private int line;
+
+    NdjsonRecords(InputStream input, Gson gson) {
+        this.gson = gson;
+        reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    // The name a record is written under
+    static String nameOf(Object record) {
+        if (record instanceof Department) {
+            return "department";
+        } else if (record instanceof Employee) {
+            return "employee";
+        }
+        return "timecard";
+    }
+
+    @Override
+    public Object next() throws Exception {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+        try {
+            JsonElement record = JsonParser.parseString(text);
+            if (!record.isJsonObject() || record.getAsJsonObject().size() != 1) {
+                throw new Exception("Expected an object with a department, employee or timecard");
+            }
+            Map.Entry<String, JsonElement> entry = record.getAsJsonObject().entrySet().iterator().next();
+            Class<?> type = TYPES.get(entry.getKey());
+            if (type == null || !(entry.getValue() instanceof JsonObject)) {
+                throw new Exception("Expected an object with a department, employee or timecard");
+            }
+            return gson.fromJson(entry.getValue(), type);
+        } catch (JsonParseException e) {
+            throw new Exception(position() + ": Malformed record");
+        } catch (Exception e) {
+            throw new Exception(position() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String position() {
+        return "Line " + line;
+    }
+}
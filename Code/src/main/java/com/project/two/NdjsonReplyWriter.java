@@ -0,0 +1,59 @@
+package com.project.two;
+
+import com.google.gson.Gson;
+import com.project.two.data.RowCursor;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+/**
+ * Writes a {@link Reply.Records} export as newline-delimited JSON, each
+ * record on its own line under its name, as {@link NdjsonRecords} reads it
+ * back. Records are written as they are read, so memory use does not grow
+ * with the size of the company.
+ */
+@Provider
+@Produces(NdjsonRecords.APPLICATION_NDJSON)
+public class NdjsonReplyWriter implements MessageBodyWriter<Reply.Records> {
+    private final Gson gson;
+
+    @Inject
+    public NdjsonReplyWriter(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == Reply.Records.class;
+    }
+
+    @Override
+    public void writeTo(Reply.Records reply, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException {
+        try (RowCursor<Object> cursor = reply.records();
+             Writer out = new BufferedWriter(new OutputStreamWriter(entityStream, StandardCharsets.UTF_8))) {
+            for (Object record = cursor.next(); record != null; record = cursor.next()) {
+                out.write("{\"");
+                out.write(NdjsonRecords.nameOf(record));
+                out.write("\":");
+                gson.toJson(record, record.getClass(), out);
+                out.write("}\n");
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read rows", e);
+        }
+    }
+}
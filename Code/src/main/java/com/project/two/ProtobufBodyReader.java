@@ -0,0 +1,46 @@
+package com.project.two;
+
+import com.project.two.protobuf.EntityMessages;
+import com.project.two.protobuf.ProtobufMediaType;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads a protobuf {@link RequestBody}: a Department, Employee or Timecard
+ * message, or the matching list message for a batch.
+ */
+@Provider
+@Consumes(ProtobufMediaType.APPLICATION_PROTOBUF)
+public class ProtobufBodyReader implements MessageBodyReader<RequestBody> {
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == RequestBody.class;
+    }
+
+    @Override
+    public RequestBody readFrom(Class<RequestBody> type, Type genericType, Annotation[] annotations,
+                                MediaType mediaType, MultivaluedMap<String, String> httpHeaders,
+                                InputStream entityStream) throws IOException {
+        byte[] data = entityStream.readAllBytes();
+        return new RequestBody() {
+            @Override
+            public <T> T read(Class<T> type) throws Exception {
+                return EntityMessages.parse(type, data);
+            }
+
+            @Override
+            public <T> List<T> readList(Class<T> type) throws Exception {
+                return EntityMessages.parseList(type, data);
+            }
+        };
+    }
+}
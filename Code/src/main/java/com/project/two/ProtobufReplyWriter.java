@@ -0,0 +1,79 @@
+package com.project.two;
+
+import com.google.protobuf.Message;
+import com.project.two.business.BatchResult;
+import com.project.two.protobuf.CompanyProtos;
+import com.project.two.protobuf.EntityMessages;
+import com.project.two.protobuf.ProtobufMediaType;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Renders a {@link Reply} as protobuf: an Envelope for a single record or
+ * message, an EnvelopeList for a batch, and length-delimited records for a
+ * list. The content type names the message type.
+ */
+@Provider
+@Produces(ProtobufMediaType.APPLICATION_PROTOBUF)
+public class ProtobufReplyWriter implements MessageBodyWriter<Reply> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return Reply.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Reply reply, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        if (reply instanceof Reply.Rows<?> rows) {
+            httpHeaders.putSingle(HttpHeaders.CONTENT_TYPE,
+                ProtobufMediaType.delimited(EntityMessages.messageName(rows.type())));
+            writeRows(rows, entityStream);
+            return;
+        }
+        Message message = toMessage(reply);
+        httpHeaders.putSingle(HttpHeaders.CONTENT_TYPE,
+            ProtobufMediaType.of(message.getDescriptorForType().getFullName()));
+        message.writeTo(entityStream);
+    }
+
+    private static Message toMessage(Reply reply) {
+        if (reply instanceof Reply.Entity<?> entity) {
+            return toMessage(entity);
+        } else if (reply instanceof Reply.Stored stored) {
+            return EntityMessages.envelope(stored.value(), null);
+        } else if (reply instanceof Reply.Success success) {
+            return EntityMessages.success(success.message());
+        } else if (reply instanceof Reply.Failure failure) {
+            return EntityMessages.error(failure.message());
+        } else {
+            return toMessage((Reply.Batch<?>) reply);
+        }
+    }
+
+    private static <T> Message toMessage(Reply.Entity<T> entity) {
+        return EntityMessages.envelope(entity.value(), entity.projection());
+    }
+
+    private static <T> Message toMessage(Reply.Batch<T> batch) {
+        CompanyProtos.EnvelopeList.Builder response = CompanyProtos.EnvelopeList.newBuilder();
+        for (BatchResult<T> result : batch.results()) {
+            response.addItems(result.isSuccess()
+                ? EntityMessages.envelope(result.value(), null)
+                : EntityMessages.error(result.error()));
+        }
+        return response.build();
+    }
+
+    private static <T> void writeRows(Reply.Rows<T> rows, OutputStream output) throws IOException {
+        EntityMessages.writeDelimited(rows.rows(), rows.projection(), output);
+    }
+}
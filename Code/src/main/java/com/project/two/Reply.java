@@ -0,0 +1,60 @@
+package com.project.two;
+
+import com.project.two.business.BatchResult;
+import com.project.two.data.RowCursor;
+import com.project.two.json.FieldProjection;
+import java.util.List;
+
+/**
+ * A response body in no particular format. The resource methods return
+ * these and {@link JsonReplyWriter} or {@link ProtobufReplyWriter} renders
+ * them, whichever matches the negotiated content type; exports are written
+ * by {@link NdjsonReplyWriter}.
+ */
+public sealed interface Reply {
+
+    /**
+     * A record as a GET returns it, on its own or under a name such as
+     * "timecard".
+     */
+    record Entity<T>(String name, T value, FieldProjection<T> projection) implements Reply {
+    }
+
+    /**
+     * A stored record, {"success": record}.
+     */
+    record Stored(Object value) implements Reply {
+    }
+
+    /**
+     * {"success": message}
+     */
+    record Success(String message) implements Reply {
+    }
+
+    /**
+     * {"error": message}
+     */
+    record Failure(String message) implements Reply {
+    }
+
+    /**
+     * One entry per submitted item, in order, shaped like the single-record
+     * responses.
+     */
+    record Batch<T>(List<BatchResult<T>> results) implements Reply {
+    }
+
+    /**
+     * A list streamed from the cursor, which the writer closes.
+     */
+    record Rows<T>(RowCursor<T> rows, Class<T> type, FieldProjection<T> projection) implements Reply {
+    }
+
+    /**
+     * Departments, employees and timecards streamed from the cursor as
+     * newline-delimited JSON, which the writer closes.
+     */
+    record Records(RowCursor<Object> records) implements Reply {
+    }
+}
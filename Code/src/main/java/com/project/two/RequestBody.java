@@ -0,0 +1,18 @@
+package com.project.two;
+
+import java.util.List;
+
+/**
+ * A request body read by {@link JsonBodyReader} or {@link ProtobufBodyReader}
+ * according to its content type, but not yet parsed. Parsing happens in the
+ * resource method so a malformed body is answered like any other error.
+ */
+public interface RequestBody {
+
+    <T> T read(Class<T> type) throws Exception;
+
+    /**
+     * Reads a list of records; an empty body is an empty list.
+     */
+    <T> List<T> readList(Class<T> type) throws Exception;
+}
@@ -0,0 +1,167 @@
+package com.project.two;
+
+import com.project.two.metrics.Metrics;
+import com.project.two.metrics.RequestTrace;
+import com.project.two.metrics.RequestTrace.Phase;
+import com.project.two.util.Config;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs resource method bodies on virtual threads instead of container worker
+ * threads.
+ *
+ * A blocked JDBC call then parks a cheap virtual thread and the worker goes
+ * back to accepting requests. How many requests do database work at the
+ * same time is decided by {@link Admission}; the rest wait for a place
+ * without holding a worker thread, or are turned away.
+ */
+final class RequestExecutor {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final long TIMEOUT_SECONDS = Config.getLong("companyservices.async.timeoutSeconds", 30);
+    private static final long UPLOAD_TIMEOUT_SECONDS =
+        Config.getLong("companyservices.async.uploadTimeoutSeconds", 300);
+
+    interface Work {
+        Object run() throws Exception;
+    }
+
+    interface UploadWork {
+        Object run(SpooledBody body) throws Exception;
+    }
+
+    private RequestExecutor() {
+    }
+
+    /**
+     * Resumes the suspended response with the work's result. A read still
+     * unanswered after the timeout is answered with 503 Service Unavailable,
+     * which is safe to retry. Writes have no timeout: once admitted they
+     * run to their commit or failure and answer with that, so a client is
+     * never told to retry a write that then commits.
+     * The request is traced and recorded in {@link Metrics} under the
+     * endpoint name, and admitted in the lane of its HTTP method.
+     */
+    static void submit(AsyncResponse response, String endpoint, String method, Work work) {
+        Admission.Lane lane = Admission.laneFor(method);
+        if (lane == Admission.READS) {
+            response.setTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        long submitted = System.nanoTime();
+        EXECUTOR.execute(() -> {
+            RequestTrace.begin(endpoint, submitted);
+            try {
+                run(response, lane, work);
+            } finally {
+                Metrics.recordRequest(RequestTrace.finish());
+            }
+        });
+    }
+
+    /**
+     * Like {@link #submit}, for a write whose request body is read in full
+     * first. The body is spooled to a file before admission, so a slow
+     * client holds neither a permit nor a transaction, and a client that
+     * has not finished sending it within the upload timeout is answered
+     * with 503 Service Unavailable. Once the body is in, the timeout is
+     * lifted and the write runs to its commit or failure like any other.
+     */
+    static void submit(AsyncResponse response, String endpoint, String method, InputStream body,
+                       UploadWork work) {
+        Admission.Lane lane = Admission.laneFor(method);
+        response.setTimeout(UPLOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        long submitted = System.nanoTime();
+        EXECUTOR.execute(() -> {
+            RequestTrace.begin(endpoint, submitted);
+            try {
+                SpooledBody spooled = spool(response, body);
+                if (spooled != null) {
+                    try (spooled) {
+                        run(response, lane, () -> work.run(spooled));
+                    }
+                }
+            } finally {
+                Metrics.recordRequest(RequestTrace.finish());
+            }
+        });
+    }
+
+    // The spooled body, or null when the response was already answered
+    private static SpooledBody spool(AsyncResponse response, InputStream body) {
+        SpooledBody spooled;
+        try {
+            spooled = SpooledBody.spool(body);
+        } catch (Throwable t) {
+            RequestTrace.markFailed();
+            response.resume(t);
+            return null;
+        }
+        // With the timeout lifted first, a response still suspended can no
+        // longer time out while the write commits
+        response.setTimeout(AsyncResponse.NO_TIMEOUT, TimeUnit.SECONDS);
+        if (!response.isSuspended()) {
+            RequestTrace.markFailed();
+            spooled.close();
+            return null;
+        }
+        return spooled;
+    }
+
+    private static void run(AsyncResponse response, Admission.Lane lane, Work work) {
+        Admission.Rejection rejection;
+        try {
+            rejection = lane.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            RequestTrace.markFailed();
+            response.resume(e);
+            return;
+        }
+        if (rejection != null) {
+            RequestTrace.markFailed();
+            response.resume(Response.status(rejection.status())
+                .header(HttpHeaders.RETRY_AFTER, rejection.retryAfterSeconds())
+                .entity(new Reply.Failure(rejection.message()))
+                .build());
+            return;
+        }
+        long admitted = System.nanoTime();
+        RequestTrace.enter(Phase.OTHER);
+        try {
+            Object result = work.run();
+            // Resuming writes the response on this thread, so the permit
+            // also covers streamed bodies that still read from the database
+            RequestTrace.enter(Phase.SERIALIZE);
+            if (!response.resume(result)) {
+                // Already answered by the timeout or cancelled, so no writer
+                // will close the rows and the session they read from
+                RequestTrace.markFailed();
+                discard(result);
+            }
+        } catch (Throwable t) {
+            RequestTrace.markFailed();
+            response.resume(t);
+        } finally {
+            lane.release(System.nanoTime() - admitted, dbNanosPerCall());
+        }
+    }
+
+    private static void discard(Object result) {
+        Object entity = result instanceof Response response ? response.getEntity() : result;
+        if (entity instanceof Reply.Rows<?> rows) {
+            rows.rows().close();
+        } else if (entity instanceof Reply.Records records) {
+            records.records().close();
+        }
+    }
+
+    private static long dbNanosPerCall() {
+        RequestTrace trace = RequestTrace.current();
+        return trace == null || trace.dbCalls() == 0 ? 0 : trace.phaseNanos(Phase.DB) / trace.dbCalls();
+    }
+}
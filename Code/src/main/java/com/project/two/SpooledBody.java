@@ -0,0 +1,49 @@
+package com.project.two;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A request body copied to a temporary file, so that work which reads it
+ * runs at the speed of the disk rather than of the client. Closing it
+ * deletes the file.
+ */
+final class SpooledBody implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(SpooledBody.class.getName());
+
+    private final Path file;
+
+    private SpooledBody(Path file) {
+        this.file = file;
+    }
+
+    // Reads the whole body; nothing is left behind if that fails
+    static SpooledBody spool(InputStream body) throws IOException {
+        Path file = Files.createTempFile("companyservices-upload", ".tmp");
+        try (body) {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            return new SpooledBody(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    InputStream open() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to delete " + file, e);
+        }
+    }
+}
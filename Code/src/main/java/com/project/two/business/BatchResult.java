@@ -0,0 +1,19 @@
+package com.project.two.business;
+
+/**
+ * Outcome of one item of a batch: the stored record, or why it was rejected.
+ */
+public record BatchResult<T>(T value, String error) {
+
+    public static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(value, null);
+    }
+
+    public static <T> BatchResult<T> failure(String error) {
+        return new BatchResult<>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -1,30 +1,380 @@
 package com.project.two.business;
 
+import com.project.two.data.RowCursor;
+import com.project.two.data.Storage;
+import com.project.two.data.StorageSession;
+import com.project.two.metrics.Metrics;
+import com.project.two.metrics.RequestTrace;
+import com.project.two.util.Config;
+import com.project.two.util.Temporals;
 import companydata.*;
 import java.util.*;
+import java.util.function.ToIntFunction;
 
 public class BusinessLayer {
-    private DataLayer dl;
-    private final String RIT_USERNAME = "njw1389";
+    private static final TimecardDayIndex TIMECARD_DAYS = new TimecardDayIndex();
+    private static final ManagerIndex MANAGERS = new ManagerIndex();
+    private static final EmployeeIndex EMPLOYEE_INDEX = new EmployeeIndex();
+    private static final CompanyVersions VERSIONS = new CompanyVersions();
+    private static final int MAX_PAGE_SIZE = Config.getInt("companyservices.page.maxSize", 1000);
+    private static final int MAX_BATCH_SIZE = Config.getInt("companyservices.batch.maxSize", 10000);
+    private static final int IMPORT_BATCH_SIZE = Config.getInt("companyservices.import.batchSize", 1000);
 
+    // Read caches. Single rows are cached by id; a company's rows are cached
+    // as one list sorted by id, from which list pages are served
+    private static final int CACHE_MAX_ENTRIES = Config.getInt("companyservices.cache.maxEntries", 10000);
+    private static final long CACHE_TTL_SECONDS = Config.getLong("companyservices.cache.ttlSeconds", 60);
+    private static final int CACHE_MAX_LIST_SIZE = Config.getInt("companyservices.cache.maxListSize", 10000);
+    private static final EntityCache<Integer, Department> DEPARTMENTS =
+        new EntityCache<>("departments", CACHE_MAX_ENTRIES, CACHE_TTL_SECONDS);
+    private static final EntityCache<Integer, Employee> EMPLOYEES =
+        new EntityCache<>("employees", CACHE_MAX_ENTRIES, CACHE_TTL_SECONDS);
+    private static final EntityCache<String, CompanyList<Department>> DEPARTMENT_LISTS =
+        new EntityCache<>("department_lists", CACHE_MAX_ENTRIES, CACHE_TTL_SECONDS);
+    private static final EntityCache<String, CompanyList<Employee>> EMPLOYEE_LISTS =
+        new EntityCache<>("employee_lists", CACHE_MAX_ENTRIES, CACHE_TTL_SECONDS);
+
+    // Concurrent identical reads share one query. Keys carry the data
+    // version read before the query, so a reader that arrives after a
+    // committed write starts a new load instead of joining an older one
+    private static final int COALESCE_MAX_WAITERS = Config.getInt("companyservices.coalesce.maxWaiters", 1000);
+    private static final long COALESCE_WAIT_MILLIS = Config.getLong("companyservices.coalesce.waitMillis", 30000);
+    private static final SingleFlight<ReadKey, CompanyList<Department>> DEPARTMENT_LOADS =
+        new SingleFlight<>("department_lists", COALESCE_MAX_WAITERS, COALESCE_WAIT_MILLIS);
+    private static final SingleFlight<ReadKey, CompanyList<Employee>> EMPLOYEE_LOADS =
+        new SingleFlight<>("employee_lists", COALESCE_MAX_WAITERS, COALESCE_WAIT_MILLIS);
+    private static final SingleFlight<ReadKey, PageRows<?>> PAGE_LOADS =
+        new SingleFlight<>("pages", COALESCE_MAX_WAITERS, COALESCE_WAIT_MILLIS);
+
+    private static final ChangeFeed CHANGES = new ChangeFeed(Config.getInt("companyservices.changes.capacity", 4096));
+
+    private static final String RIT_USERNAME = "njw1389";
+
+    /**
+     * Holds no state of its own beyond the shared caches and indexes, so one
+     * instance serves every request; see CompanyServicesApplication.
+     */
     public BusinessLayer() {
-        dl = null;
     }
 
-    private void openConnection() throws Exception {
-        if (dl == null) {
-            dl = new DataLayer(RIT_USERNAME);
+    // What one operation holds while it runs: its storage session, opened on
+    // first use, and what to do once it ends. Used by one thread at a time
+    private static final class UnitOfWork {
+        private StorageSession session;
+        private boolean inTransaction;
+        private boolean committed;
+        private boolean timecardWrite;
+        private boolean employeeWrite;
+        private final List<ChangeEvent> changes = new ArrayList<>();
+
+        // Opens a session of the configured storage; with MySQL it borrows a pooled connection
+        StorageSession session() throws Exception {
+            if (session == null) {
+                session = Storage.getInstance().openSession();
+            }
+            return session;
+        }
+
+        // Returns the connection; an uncommitted transaction is rolled back
+        void close() {
+            if (session != null) {
+                session.close();
+                session = null;
+            }
         }
     }
 
-    private void closeConnection() {
-        if (dl != null) {
-            dl.close();
-            dl = null;
+    // Starts the single transaction shared by a mutation's validation reads and write
+    private static StorageSession beginUnitOfWork(UnitOfWork work) throws Exception {
+        StorageSession session = work.session();
+        session.begin();
+        work.inTransaction = true;
+        return session;
+    }
+
+    private static void commitUnitOfWork(UnitOfWork work) throws Exception {
+        work.session().commit();
+        work.committed = true;
+    }
+
+    // Records a change to publish once the operation has committed; an
+    // update that found no row is not one. Employees and timecards belong
+    // to the company this service accepts
+    private static void changed(UnitOfWork work, String company, String entity, String action, int entityId,
+                                Object data) {
+        if (data != null || action.equals("delete")) {
+            work.changes.add(new ChangeEvent(company, entity, action, entityId, data));
         }
     }
 
+    // Lets hours reports tell that their timecard reads may be missing a write
+    private static void beginTimecardWrite(UnitOfWork work) {
+        TIMECARD_DAYS.beginWrite();
+        work.timecardWrite = true;
+    }
+
+    // Likewise for loads of the reporting tree and the search indexes
+    private static void beginEmployeeWrite(UnitOfWork work) {
+        MANAGERS.beginWrite();
+        EMPLOYEE_INDEX.beginWrite();
+        work.employeeWrite = true;
+    }
+
+    private interface Operation<T> {
+        T run(UnitOfWork work) throws Exception;
+    }
+
+    // Runs one public operation in a unit of work of its own, returns its
+    // connection and records its duration and outcome in the metrics. A
+    // committed operation bumps the data version after the caches are
+    // updated, so a reader that sees the new version also reads the new
+    // data, and then publishes its changes.
+    private <T> T operation(String name, Operation<T> body) throws Exception {
+        long start = System.nanoTime();
+        boolean failed = true;
+        UnitOfWork work = new UnitOfWork();
+        try {
+            T result = body.run(work);
+            failed = false;
+            return result;
+        } finally {
+            work.close();
+            if (work.timecardWrite) {
+                TIMECARD_DAYS.endWrite();
+            }
+            if (work.employeeWrite) {
+                MANAGERS.endWrite();
+                EMPLOYEE_INDEX.endWrite();
+            }
+            if (work.committed) {
+                VERSIONS.bump(RIT_USERNAME);
+                CHANGES.publish(work.changes);
+            }
+            Metrics.recordOperation(name, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Version of the company's data. Read it before the data it describes,
+     * so a concurrent mutation can only make the version older than the
+     * data, never newer.
+     */
+    public DataVersion getDataVersion(String companyName) {
+        return VERSIONS.get(companyName);
+    }
+
+    // Employees and timecards are looked up without a company; every one of
+    // them belongs to the company this service accepts
+    public DataVersion getDataVersion() {
+        return VERSIONS.get(RIT_USERNAME);
+    }
+
+    /**
+     * The feed of committed changes, after checking the company it is read
+     * for.
+     */
+    public ChangeFeed getChangeFeed(String companyName) throws Exception {
+        validateCompany(companyName);
+        return CHANGES;
+    }
+
+    private interface StreamQuery<T> {
+        RowCursor<T> open(StorageSession session, int limit) throws Exception;
+    }
+
+    private record ReadKey(String query, DataVersion version) {
+    }
+
+    // A page read into memory so that coalesced readers can share it
+    private record PageRows<T>(List<T> rows, int nextAfter) {
+        Page<T> page() {
+            return new Page<>(RowCursor.of(rows), nextAfter);
+        }
+    }
+
+    // A missing or oversized limit is capped at the server maximum
+    private static int pageSize(int limit) {
+        return limit <= 0 || limit > MAX_PAGE_SIZE ? MAX_PAGE_SIZE : limit;
+    }
+
+    // Pages are read on a connection of their own, with one row past the
+    // page: when it is there, the page's last id is the next cursor. Concurrent
+    // reads of the same page share one query, read into memory, at most
+    // MAX_PAGE_SIZE rows.
+    @SuppressWarnings("unchecked")
+    private <T> Page<T> coalescedPage(String query, String company, int limit, ToIntFunction<T> idOf,
+                                      StreamQuery<T> rows) throws Exception {
+        int size = pageSize(limit);
+        ReadKey key = new ReadKey(query + ":" + size, VERSIONS.get(company));
+        PageRows<T> shared = (PageRows<T>) PAGE_LOADS.run(key, () -> {
+            List<T> loaded = new ArrayList<>(size + 1);
+            try (StorageSession session = Storage.getInstance().openSession();
+                 RowCursor<T> cursor = rows.open(session, size + 1)) {
+                for (T row = cursor.next(); row != null; row = cursor.next()) {
+                    loaded.add(row);
+                }
+            }
+            int nextAfter = 0;
+            if (loaded.size() > size) {
+                loaded.remove(size);
+                nextAfter = idOf.applyAsInt(loaded.get(size - 1));
+            }
+            return new PageRows<>(Collections.unmodifiableList(loaded), nextAfter);
+        });
+        return shared.page();
+    }
+
+    // Cached reads
+    // A miss reads through the open connection, or borrows one
+
+    // A company's rows sorted by id, or null rows when there were more than
+    // CACHE_MAX_LIST_SIZE; those are paged from the database until it expires
+    private record CompanyList<T>(List<T> rows) {
+    }
+
+    private interface ListQuery<T> {
+        List<T> load() throws Exception;
+    }
+
+    public static List<CacheStats> getCacheStats() {
+        return List.of(DEPARTMENTS.getStats(), EMPLOYEES.getStats(),
+            DEPARTMENT_LISTS.getStats(), EMPLOYEE_LISTS.getStats());
+    }
+
+    public static List<CoalesceStats> getCoalesceStats() {
+        return List.of(DEPARTMENT_LOADS.getStats(), EMPLOYEE_LOADS.getStats(), PAGE_LOADS.getStats());
+    }
+
+    // Rows read inside a transaction are not cached: at REPEATABLE READ they
+    // come from its snapshot, which may predate a write the cache has seen
+    // commit since the stamp was taken
+    private Department findDepartment(UnitOfWork work, String company, int deptId) throws Exception {
+        Department dept = DEPARTMENTS.get(deptId);
+        if (dept != null) {
+            return company.equals(dept.getCompany()) ? dept : null;
+        }
+        long stamp = DEPARTMENTS.stamp();
+        dept = work.session().getDepartment(company, deptId);
+        if (dept != null && !work.inTransaction) {
+            DEPARTMENTS.putIfUnchanged(deptId, dept, stamp);
+        }
+        return dept;
+    }
+
+    private Employee findEmployee(UnitOfWork work, int empId) throws Exception {
+        Employee emp = EMPLOYEES.get(empId);
+        if (emp != null) {
+            return emp;
+        }
+        long stamp = EMPLOYEES.stamp();
+        emp = work.session().getEmployee(empId);
+        if (emp != null && !work.inTransaction) {
+            EMPLOYEES.putIfUnchanged(empId, emp, stamp);
+        }
+        return emp;
+    }
+
+    private List<Department> findDepartments(UnitOfWork work, String company) throws Exception {
+        return findList(work, DEPARTMENT_LISTS, DEPARTMENTS, DEPARTMENT_LOADS, company, Department::getId,
+            () -> work.session().getAllDepartment(company));
+    }
+
+    private List<Employee> findEmployees(UnitOfWork work, String company) throws Exception {
+        return findList(work, EMPLOYEE_LISTS, EMPLOYEES, EMPLOYEE_LOADS, company, Employee::getId,
+            () -> work.session().getAllEmployee(company));
+    }
+
+    // Returns the company's rows sorted by id, or null when the list is too
+    // long to cache. Loading a list also caches its rows by id; concurrent
+    // misses share the load, and only its leader stores what it read. A
+    // transaction reads its own list, which is neither shared nor cached.
+    private static <T> List<T> findList(UnitOfWork work, EntityCache<String, CompanyList<T>> lists,
+                                        EntityCache<Integer, T> byId, SingleFlight<ReadKey, CompanyList<T>> loads,
+                                        String company, ToIntFunction<T> idOf, ListQuery<T> query)
+            throws Exception {
+        CompanyList<T> cached = lists.get(company);
+        if (cached != null) {
+            return cached.rows();
+        }
+        if (work.inTransaction) {
+            List<T> loaded = new ArrayList<>(query.load());
+            loaded.sort(Comparator.comparingInt(idOf));
+            return loaded;
+        }
+        return loads.run(new ReadKey(company, VERSIONS.get(company)), () -> {
+            long listStamp = lists.stamp();
+            long rowStamp = byId.stamp();
+            List<T> loaded = new ArrayList<>(query.load());
+            if (loaded.size() > CACHE_MAX_LIST_SIZE) {
+                CompanyList<T> uncached = new CompanyList<>(null);
+                lists.putIfUnchanged(company, uncached, listStamp);
+                return uncached;
+            }
+            loaded.sort(Comparator.comparingInt(idOf));
+            CompanyList<T> list = new CompanyList<>(Collections.unmodifiableList(loaded));
+            lists.putIfUnchanged(company, list, listStamp);
+            for (T row : list.rows()) {
+                byId.putIfUnchanged(idOf.applyAsInt(row), row, rowStamp);
+            }
+            return list;
+        }).rows();
+    }
+
+    // A page of rows sorted by id, with the same cursors as a database page
+    private static <T> Page<T> pageOf(List<T> rows, ToIntFunction<T> idOf, int afterId, int limit) {
+        int low = 0;
+        int high = rows.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idOf.applyAsInt(rows.get(mid)) <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = Math.min(low + pageSize(limit), rows.size());
+        int nextAfter = end < rows.size() ? idOf.applyAsInt(rows.get(end - 1)) : 0;
+        return new Page<>(RowCursor.of(rows.subList(low, end)), nextAfter);
+    }
+
+    // Cache upkeep after a committed write. Inserts are written through;
+    // updates and deletes invalidate, since two updates of the same row could
+    // otherwise reach the cache in the opposite order to their commits.
+    private static void departmentWritten(String company, Department inserted) {
+        if (inserted != null) {
+            DEPARTMENTS.put(inserted.getId(), inserted);
+        }
+        DEPARTMENT_LISTS.remove(company);
+    }
+
+    private static void departmentChanged(String company, int deptId) {
+        DEPARTMENTS.remove(deptId);
+        DEPARTMENT_LISTS.remove(company);
+    }
+
+    // Employee lists are per company, but every employee belongs to the one
+    // company this service accepts, so a change clears them all
+    private static void employeeWritten(Employee inserted) {
+        if (inserted != null) {
+            EMPLOYEES.put(inserted.getId(), inserted);
+        }
+        EMPLOYEE_LISTS.clear();
+    }
+
+    private static void employeeChanged(int empId) {
+        EMPLOYEES.remove(empId);
+        EMPLOYEE_LISTS.clear();
+    }
+
+    private static void clearCaches() {
+        DEPARTMENTS.clear();
+        EMPLOYEES.clear();
+        DEPARTMENT_LISTS.clear();
+        EMPLOYEE_LISTS.clear();
+    }
+
     // Validation methods
+    // Methods that read the database expect an open connection
     private void validateCompany(String company) throws Exception {
         if (company == null || company.trim().isEmpty()) {
             throw new Exception("Company name is required");
@@ -34,346 +384,761 @@ public class BusinessLayer {
         }
     }
 
-    private void validateDepartment(Department dept) throws Exception {
-        if (dept.getDeptNo() == null || dept.getDeptNo().trim().isEmpty()) {
-            throw new Exception("Department number is required");
-        }
-        if (dept.getDeptName() == null || dept.getDeptName().trim().isEmpty()) {
-            throw new Exception("Department name is required");
-        }
-        if (dept.getLocation() == null || dept.getLocation().trim().isEmpty()) {
-            throw new Exception("Location is required");
-        }
-        
-        // Validate unique dept_no among all companies
+    private void validateDepartment(UnitOfWork work, Department dept) throws Exception {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.VALIDATE);
         try {
-            openConnection();
-            Department existing = dl.getDepartmentNo(dept.getCompany(), dept.getDeptNo());
+            EntityValidator.checkDepartment(dept);
+
+            // Validate unique dept_no among all companies
+            Department existing = work.session().getDepartmentNo(dept.getCompany(), dept.getDeptNo());
             if (existing != null && existing.getId() != dept.getId()) {
                 throw new Exception("Department number must be unique across all companies");
             }
         } finally {
-            closeConnection();
+            RequestTrace.exit(previous);
         }
     }
 
-    private void validateEmployee(Employee emp, boolean isNew) throws Exception {
-        // Remove the ID validation since it's an auto-generated integer
-        // Instead validate emp_no which is the employee number string
-        if (emp.getEmpNo() == null || emp.getEmpNo().trim().isEmpty()) {
-            throw new Exception("Employee number is required");
-        }
-        if (emp.getEmpName() == null || emp.getEmpName().trim().isEmpty()) {
-            throw new Exception("Employee name is required");
-        }
-        if (emp.getHireDate() == null) {
-            throw new Exception("Hire date is required");
-        }
-        if (!isValidWeekday(emp.getHireDate())) {
-            throw new Exception("Hire date must be a weekday (Monday-Friday)");
-        }
-        if (emp.getSalary() <= 0) {
-            throw new Exception("Salary must be greater than zero");
-        }
-    
-        // Validate hire date is not in future
-        if (emp.getHireDate().after(new Date())) {
-            throw new Exception("Hire date cannot be in the future");
-        }
-    
+    private void validateEmployee(UnitOfWork work, Employee emp, boolean isNew) throws Exception {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.VALIDATE);
         try {
-            openConnection();
+            EntityValidator.checkEmployee(emp);
+
             // Validate department exists
-            List<Department> departments = dl.getAllDepartment(RIT_USERNAME);
-            boolean deptExists = departments.stream()
-                .anyMatch(d -> d.getId() == emp.getDeptId());
-            if (!deptExists) {
+            if (findDepartment(work, RIT_USERNAME, emp.getDeptId()) == null) {
                 throw new Exception("Department does not exist");
             }
-    
+
             // Validate manager exists (if specified)
             if (emp.getMngId() != 0) {
-                Employee manager = dl.getEmployee(emp.getMngId());
+                Employee manager = findEmployee(work, emp.getMngId());
                 if (manager == null) {
                     throw new Exception("Manager does not exist");
                 }
+                if (!isNew && reportsTo(work, emp.getMngId(), emp.getId())) {
+                    throw new Exception("Manager cannot be the employee or one of their reports");
+                }
             }
-    
+
             // Validate unique emp_no
-            if (isNew) {
-                List<Employee> allEmployees = dl.getAllEmployee(RIT_USERNAME);
-                boolean empNoExists = allEmployees.stream()
-                    .anyMatch(e -> e.getEmpNo().equals(emp.getEmpNo()));
-                if (empNoExists) {
-                    throw new Exception("Employee number must be unique");
-                }
+            if (isNew && work.session().getEmployeeNo(RIT_USERNAME, emp.getEmpNo()) != null) {
+                throw new Exception("Employee number must be unique");
             }
         } finally {
-            closeConnection();
+            RequestTrace.exit(previous);
         }
     }
 
-    private void validateTimecard(Timecard timecard) throws Exception {
-        if (timecard.getStartTime() == null || timecard.getEndTime() == null) {
-            throw new Exception("Start time and end time are required");
-        }
-        
-        Calendar start = Calendar.getInstance();
-        start.setTime(timecard.getStartTime());
-        Calendar end = Calendar.getInstance();
-        end.setTime(timecard.getEndTime());
+    private void validateTimecard(UnitOfWork work, Timecard timecard) throws Exception {
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.VALIDATE);
+        try {
+            EntityValidator.checkTimecard(timecard);
 
-        // Check if times are on same day
-        if (!isSameDay(start, end)) {
-            throw new Exception("Start time and end time must be on the same day");
-        }
+            // Locking the employee serializes timecard writes for them until commit
+            Employee emp = work.session().lockEmployee(timecard.getEmpId());
+            if (emp == null) {
+                throw new Exception("Employee does not exist");
+            }
 
-        // Check if times are weekdays
-        if (!isValidWeekday(timecard.getStartTime()) || !isValidWeekday(timecard.getEndTime())) {
-            throw new Exception("Timecards can only be submitted for weekdays");
+            // Check for existing timecard on same day
+            if (!TIMECARD_DAYS.isLoaded(emp.getId())) {
+                TIMECARD_DAYS.load(emp.getId(), work.session().getAllTimecard(emp.getId()));
+            }
+            int existingId = TIMECARD_DAYS.timecardOn(emp.getId(), TimecardDayIndex.epochDay(timecard.getStartTime()));
+            if (existingId != 0 && existingId != timecard.getId()) {
+                throw new Exception("Employee already has a timecard for this day");
+            }
+        } finally {
+            RequestTrace.exit(previous);
         }
+    }
 
-        // Check business hours (8:00 - 18:00)
-        if (!isValidTimeRange(timecard.getStartTime()) || !isValidTimeRange(timecard.getEndTime())) {
-            throw new Exception("Times must be between 08:00 and 18:00");
-        }
+    /**
+     * Checks the employee as an insert (isNew) or update of it would, in a
+     * unit of work that writes nothing and is rolled back, and throws the
+     * error the write would have failed with.
+     */
+    public void validateEmployee(Employee employee, boolean isNew) throws Exception {
+        operation("validateEmployee", work -> {
+            beginUnitOfWork(work);
+            validateEmployee(work, employee, isNew);
+            return null;
+        });
+    }
 
-        // Check minimum duration (1 hour)
-        long duration = timecard.getEndTime().getTime() - timecard.getStartTime().getTime();
-        if (duration < 3600000) { // 1 hour in milliseconds
-            throw new Exception("Timecard duration must be at least 1 hour");
-        }
+    /**
+     * Likewise for an insert or update of the timecard.
+     */
+    public void validateTimecard(Timecard timecard) throws Exception {
+        operation("validateTimecard", work -> {
+            beginUnitOfWork(work);
+            validateTimecard(work, timecard);
+            return null;
+        });
+    }
 
-        // Check end time is after start time
-        if (timecard.getEndTime().before(timecard.getStartTime())) {
-            throw new Exception("End time must be after start time");
+    // Whether empId is mngId or one of its managers, walking up the reporting
+    // tree. Without a loaded tree the walk reads the rows in the unit of work,
+    // so a concurrent change that would close the loop conflicts with it.
+    private boolean reportsTo(UnitOfWork work, int mngId, int empId) throws Exception {
+        ManagerIndex.Tree tree = MANAGERS.tree();
+        if (tree != null) {
+            return tree.reaches(mngId, empId);
         }
+        Set<Integer> seen = new HashSet<>();
+        for (int id = mngId; id != 0 && seen.add(id); ) {
+            if (id == empId) {
+                return true;
+            }
+            Employee manager = work.session().getEmployee(id);
+            id = manager != null ? manager.getMngId() : 0;
+        }
+        return false;
+    }
 
+    // The reporting tree is updated before commit as well; if the commit
+    // fails it is rebuilt on next use. The search indexes are only updated
+    // once the change has committed
+    private static void commitEmployeeChange(UnitOfWork work) throws Exception {
         try {
-            openConnection();
-            Employee emp = dl.getEmployee(timecard.getEmpId());
-            if (emp == null) {
-                throw new Exception("Employee does not exist");
-            }
+            commitUnitOfWork(work);
+        } catch (Exception e) {
+            MANAGERS.invalidate();
+            throw e;
+        }
+    }
 
-            // Check for existing timecard on same day
-            List<Timecard> existingCards = dl.getAllTimecard(timecard.getEmpId());
-            for (Timecard existing : existingCards) {
-                Calendar existingStart = Calendar.getInstance();
-                existingStart.setTime(existing.getStartTime());
-                if (existing.getId() != timecard.getId() && isSameDay(start, existingStart)) {
-                    throw new Exception("Employee already has a timecard for this day");
-                }
-            }
-        } finally {
-            closeConnection();
+    // Reads the employees a delete may have changed or deleted along the
+    // way, by id, with null for those that are gone, so the search indexes
+    // can follow whatever the database did once the delete commits
+    private static Map<Integer, Employee> rereadEmployees(StorageSession dl, Collection<Integer> empIds)
+            throws Exception {
+        Map<Integer, Employee> rows = new HashMap<>();
+        for (int empId : empIds) {
+            rows.put(empId, dl.getEmployee(empId));
         }
+        return rows;
     }
 
-    private boolean isValidWeekday(Date date) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        int dayOfWeek = cal.get(Calendar.DAY_OF_WEEK);
-        return dayOfWeek >= Calendar.MONDAY && dayOfWeek <= Calendar.FRIDAY;
+    private static void indexEmployees(Map<Integer, Employee> rows) {
+        for (Map.Entry<Integer, Employee> row : rows.entrySet()) {
+            if (row.getValue() != null) {
+                EMPLOYEE_INDEX.put(row.getValue());
+            } else {
+                EMPLOYEE_INDEX.remove(row.getKey());
+            }
+        }
     }
 
-    private boolean isValidTimeRange(Date time) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(time);
-        int hour = cal.get(Calendar.HOUR_OF_DAY);
-        return hour >= 8 && hour <= 18;
+    // The day index is updated before commit, while the employee lock is
+    // still held; if the commit fails the employee is reloaded on next use
+    private static void commitTimecardChange(UnitOfWork work, int empId) throws Exception {
+        commitTimecardChanges(work, List.of(empId));
     }
 
-    private boolean isSameDay(Calendar cal1, Calendar cal2) {
-        return cal1.get(Calendar.YEAR) == cal2.get(Calendar.YEAR) &&
-               cal1.get(Calendar.MONTH) == cal2.get(Calendar.MONTH) &&
-               cal1.get(Calendar.DAY_OF_MONTH) == cal2.get(Calendar.DAY_OF_MONTH);
+    private static void commitTimecardChanges(UnitOfWork work, Collection<Integer> empIds) throws Exception {
+        try {
+            commitUnitOfWork(work);
+        } catch (Exception e) {
+            for (int empId : empIds) {
+                TIMECARD_DAYS.invalidate(empId);
+            }
+            throw e;
+        }
     }
 
     // Company operations
     public int deleteCompany(String companyName) throws Exception {
-        try {
+        return operation("deleteCompany", work -> {
             validateCompany(companyName);
-            openConnection();
-            return dl.deleteCompany(companyName);
-        } finally {
-            closeConnection();
-        }
+            beginEmployeeWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
+            int deleted = dl.deleteCompany(companyName);
+            commitUnitOfWork(work);
+            changed(work, companyName, "company", "delete", 0, null);
+            TIMECARD_DAYS.clear();
+            MANAGERS.invalidate();
+            EMPLOYEE_INDEX.clear();
+            clearCaches();
+            return deleted;
+        });
+    }
+
+    /**
+     * Every department, employee and timecard of the company, streamed from
+     * one snapshot on a connection of its own, which stays borrowed until the
+     * cursor is closed.
+     */
+    public RowCursor<Object> exportCompany(String companyName) throws Exception {
+        return operation("exportCompany", work -> {
+            validateCompany(companyName);
+            StorageSession session = Storage.getInstance().openSession();
+            try {
+                session.beginSnapshot();
+                return session.closingSession(session.streamCompany(companyName));
+            } catch (Exception e) {
+                session.close();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Adds the records to the company in one unit of work, in the form
+     * {@link #exportCompany} streams them; see {@link CompanyImport}. Nothing
+     * is written unless every record is valid.
+     */
+    public ImportSummary importCompany(String companyName, ImportRecords records) throws Exception {
+        return operation("importCompany", work -> {
+            validateCompany(companyName);
+            beginEmployeeWrite(work);
+            beginTimecardWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
+            CompanyImport load = new CompanyImport(dl, companyName, IMPORT_BATCH_SIZE);
+            ImportSummary summary = load.run(records);
+            commitUnitOfWork(work);
+            changed(work, companyName, "company", "import", 0, summary);
+            DEPARTMENT_LISTS.remove(companyName);
+            EMPLOYEE_LISTS.clear();
+            MANAGERS.invalidate();
+            for (Employee emp : load.storedEmployees()) {
+                EMPLOYEE_INDEX.put(emp);
+            }
+            return summary;
+        });
     }
 
     // Department operations
     public Department getDepartment(String companyName, int deptId) throws Exception {
-        try {
+        return operation("getDepartment", work -> {
             validateCompany(companyName);
-            openConnection();
-            return dl.getDepartment(companyName, deptId);
-        } finally {
-            closeConnection();
-        }
+            return findDepartment(work, companyName, deptId);
+        });
     }
 
-    public List<Department> getAllDepartments(String companyName) throws Exception {
-        try {
+    public Page<Department> getDepartmentPage(String companyName, int afterId, int limit) throws Exception {
+        return operation("getDepartmentPage", work -> {
             validateCompany(companyName);
-            openConnection();
-            return dl.getAllDepartment(companyName);
-        } finally {
-            closeConnection();
-        }
+            List<Department> departments = findDepartments(work, companyName);
+            if (departments != null) {
+                return pageOf(departments, Department::getId, afterId, limit);
+            }
+            return coalescedPage("departments:" + companyName + ":" + afterId, companyName, limit,
+                Department::getId,
+                (session, size) -> session.streamDepartmentPage(companyName, afterId, size));
+        });
     }
 
     public Department insertDepartment(Department department) throws Exception {
-        try {
+        return operation("insertDepartment", work -> {
             validateCompany(department.getCompany());
-            validateDepartment(department);
-            openConnection();
-            return dl.insertDepartment(department);
-        } finally {
-            closeConnection();
-        }
+            StorageSession dl = beginUnitOfWork(work);
+            validateDepartment(work, department);
+            Department inserted = dl.insertDepartment(department);
+            commitUnitOfWork(work);
+            if (inserted != null) {
+                changed(work, department.getCompany(), "department", "create", inserted.getId(), inserted);
+            }
+            departmentWritten(department.getCompany(), inserted);
+            return inserted;
+        });
     }
 
     public Department updateDepartment(Department department) throws Exception {
-        try {
+        return operation("updateDepartment", work -> {
             validateCompany(department.getCompany());
-            validateDepartment(department);
-            openConnection();
+            StorageSession dl = beginUnitOfWork(work);
+            validateDepartment(work, department);
             
             Department existing = dl.getDepartment(department.getCompany(), department.getId());
             if (existing == null) {
                 throw new Exception("Department not found");
             }
             
-            return dl.updateDepartment(department);
-        } finally {
-            closeConnection();
-        }
+            Department updated = dl.updateDepartment(department);
+            commitUnitOfWork(work);
+            changed(work, department.getCompany(), "department", "update", department.getId(), updated);
+            departmentChanged(department.getCompany(), department.getId());
+            return updated;
+        });
     }
 
     public int deleteDepartment(String company, int deptId) throws Exception {
-        try {
+        return operation("deleteDepartment", work -> {
             validateCompany(company);
-            openConnection();
+            beginEmployeeWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
             
             Department existing = dl.getDepartment(company, deptId);
             if (existing == null) {
                 throw new Exception("Department not found");
             }
+            // The department's employees and their reports, as indexed
+            Set<Integer> affected = new HashSet<>(EMPLOYEE_INDEX.inDepartment(deptId));
+            for (int empId : EMPLOYEE_INDEX.inDepartment(deptId)) {
+                affected.addAll(EMPLOYEE_INDEX.reportsOf(empId));
+            }
             
-            return dl.deleteDepartment(company, deptId);
-        } finally {
-            closeConnection();
-        }
+            int deleted = dl.deleteDepartment(company, deptId);
+            Map<Integer, Employee> rows = rereadEmployees(dl, affected);
+            commitUnitOfWork(work);
+            indexEmployees(rows);
+            changed(work, company, "department", "delete", deptId, null);
+            departmentChanged(company, deptId);
+            // Whatever the database did to the department's employees
+            EMPLOYEES.removeIf(emp -> emp.getDeptId() == deptId);
+            EMPLOYEE_LISTS.clear();
+            MANAGERS.invalidate();
+            return deleted;
+        });
     }
 
     // Employee operations
     public Employee getEmployee(int empId) throws Exception {
-        try {
-            openConnection();
-            return dl.getEmployee(empId);
-        } finally {
-            closeConnection();
-        }
+        return operation("getEmployee", work -> {
+            return findEmployee(work, empId);
+        });
     }
 
-    public List<Employee> getAllEmployees(String companyName) throws Exception {
-        try {
+    public Page<Employee> getEmployeePage(String companyName, int afterId, int limit) throws Exception {
+        return operation("getEmployeePage", work -> {
             validateCompany(companyName);
-            openConnection();
-            return dl.getAllEmployee(companyName);
-        } finally {
-            closeConnection();
-        }
+            List<Employee> employees = findEmployees(work, companyName);
+            if (employees != null) {
+                return pageOf(employees, Employee::getId, afterId, limit);
+            }
+            return coalescedPage("employees:" + companyName + ":" + afterId, companyName, limit,
+                Employee::getId,
+                (session, size) -> session.streamEmployeePage(companyName, afterId, size));
+        });
     }
 
     public Employee insertEmployee(Employee employee) throws Exception {
-        try {
-            validateEmployee(employee, true);
-            openConnection();
-            return dl.insertEmployee(employee);
-        } finally {
-            closeConnection();
-        }
+        return operation("insertEmployee", work -> {
+            beginEmployeeWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
+            validateEmployee(work, employee, true);
+            Employee inserted = dl.insertEmployee(employee);
+            if (inserted != null) {
+                MANAGERS.put(inserted.getId(), inserted.getMngId());
+            }
+            commitEmployeeChange(work);
+            if (inserted != null) {
+                EMPLOYEE_INDEX.put(inserted);
+                changed(work, RIT_USERNAME, "employee", "create", inserted.getId(), inserted);
+            }
+            employeeWritten(inserted);
+            return inserted;
+        });
     }
 
     public Employee updateEmployee(Employee employee) throws Exception {
-        try {
-            validateEmployee(employee, false);
-            openConnection();
+        return operation("updateEmployee", work -> {
+            // Loaded before this write begins, which would keep it from being stored
+            findManagers(work);
+            beginEmployeeWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
+            validateEmployee(work, employee, false);
             
             Employee existing = dl.getEmployee(employee.getId());
             if (existing == null) {
                 throw new Exception("Employee not found");
             }
             
-            return dl.updateEmployee(employee);
-        } finally {
-            closeConnection();
-        }
+            Employee updated = dl.updateEmployee(employee);
+            // Checked again in the tree itself, in case a concurrent change got there first
+            if (updated != null && !MANAGERS.put(updated.getId(), updated.getMngId())) {
+                throw new Exception("Manager cannot be the employee or one of their reports");
+            }
+            commitEmployeeChange(work);
+            if (updated != null) {
+                EMPLOYEE_INDEX.put(updated);
+            }
+            changed(work, RIT_USERNAME, "employee", "update", employee.getId(), updated);
+            employeeChanged(employee.getId());
+            return updated;
+        });
     }
 
     public int deleteEmployee(int empId) throws Exception {
-        try {
-            openConnection();
+        return operation("deleteEmployee", work -> {
+            beginEmployeeWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
             Employee existing = dl.getEmployee(empId);
             if (existing == null) {
                 throw new Exception("Employee not found");
             }
-            return dl.deleteEmployee(empId);
-        } finally {
-            closeConnection();
+            // The employee and their reports, as indexed
+            Set<Integer> affected = new HashSet<>(EMPLOYEE_INDEX.reportsOf(empId));
+            affected.add(empId);
+            int deleted = dl.deleteEmployee(empId);
+            Map<Integer, Employee> rows = rereadEmployees(dl, affected);
+            commitUnitOfWork(work);
+            indexEmployees(rows);
+            changed(work, RIT_USERNAME, "employee", "delete", empId, null);
+            TIMECARD_DAYS.invalidate(empId);
+            employeeChanged(empId);
+            // Whatever the database did to the employee's reports
+            EMPLOYEES.removeIf(emp -> emp.getMngId() == empId);
+            MANAGERS.invalidate();
+            return deleted;
+        });
+    }
+
+    // Reporting tree
+    // The employee and their managers up to the top
+    public List<Employee> getManagers(String companyName, int empId) throws Exception {
+        return operation("getManagers", work -> {
+            validateCompany(companyName);
+            Employee emp = findEmployee(work, empId);
+            if (emp == null) {
+                throw new Exception("Employee not found");
+            }
+            List<Employee> chain = new ArrayList<>();
+            chain.add(emp);
+            chain.addAll(employeesById(work, findManagers(work).managers(empId)));
+            return chain;
+        });
+    }
+
+    // The manager and everyone below them, level by level
+    public List<Employee> getReports(String companyName, int empId, int depth) throws Exception {
+        return operation("getReports", work -> {
+            validateCompany(companyName);
+            Employee manager = findEmployee(work, empId);
+            if (manager == null) {
+                throw new Exception("Employee not found");
+            }
+            List<Employee> tree = new ArrayList<>();
+            tree.add(manager);
+            tree.addAll(employeesById(work, findManagers(work).reports(empId, depth)));
+            return tree;
+        });
+    }
+
+    // The loaded reporting tree, or one built from the company's employees.
+    // A tree built while an employee write is in progress is used only once.
+    private ManagerIndex.Tree findManagers(UnitOfWork work) throws Exception {
+        ManagerIndex.Tree tree = MANAGERS.tree();
+        if (tree != null) {
+            return tree;
+        }
+        long stamp = MANAGERS.stamp();
+        List<Employee> employees = findEmployees(work, RIT_USERNAME);
+        if (employees == null) {
+            employees = work.session().getAllEmployee(RIT_USERNAME);
         }
+        return MANAGERS.loadIfUnchanged(employees, stamp);
     }
 
-    // Timecard operations
-    public Timecard getTimecard(int timecardId) throws Exception {
-        try {
-            openConnection();
-            return dl.getTimecard(timecardId);
-        } finally {
-            closeConnection();
+    // Employees matching the search, answered from the search indexes
+    public List<Employee> searchEmployees(String companyName, EmployeeSearch search) throws Exception {
+        return operation("searchEmployees", work -> {
+            validateCompany(companyName);
+            if (search.minSalary() != null && search.maxSalary() != null && search.minSalary() > search.maxSalary()) {
+                throw new Exception("Minimum salary must not be above maximum salary");
+            }
+            if (search.hiredFrom() != null && search.hiredTo() != null && search.hiredTo().before(search.hiredFrom())) {
+                throw new Exception("Hired from date must not be after hired to date");
+            }
+            return findEmployeeIndex(work).search(search, pageSize(search.limit()));
+        });
+    }
+
+    // The loaded search indexes, or ones built like the reporting tree
+    private EmployeeIndex.Table findEmployeeIndex(UnitOfWork work) throws Exception {
+        EmployeeIndex.Table table = EMPLOYEE_INDEX.table();
+        if (table != null) {
+            return table;
         }
+        long stamp = EMPLOYEE_INDEX.stamp();
+        List<Employee> employees = findEmployees(work, RIT_USERNAME);
+        if (employees == null) {
+            employees = work.session().getAllEmployee(RIT_USERNAME);
+        }
+        return EMPLOYEE_INDEX.loadIfUnchanged(employees, stamp);
     }
 
-    public List<Timecard> getAllTimecards(int empId) throws Exception {
-        try {
-            openConnection();
-            return dl.getAllTimecard(empId);
-        } finally {
-            closeConnection();
+    private List<Employee> employeesById(UnitOfWork work, List<Integer> empIds) throws Exception {
+        List<Employee> employees = new ArrayList<>(empIds.size());
+        for (int empId : empIds) {
+            Employee emp = findEmployee(work, empId);
+            if (emp != null) {
+                employees.add(emp);
+            }
         }
+        return employees;
+    }
+
+    // Timecard operations
+    public Timecard getTimecard(int timecardId) throws Exception {
+        return operation("getTimecard", work -> {
+            return work.session().getTimecard(timecardId);
+        });
+    }
+
+    public Page<Timecard> getTimecardPage(int empId, int afterId, int limit) throws Exception {
+        return operation("getTimecardPage", work -> {
+            return coalescedPage("timecards:" + empId + ":" + afterId, RIT_USERNAME, limit,
+                Timecard::getId,
+                (session, size) -> session.streamTimecardPage(empId, afterId, size));
+        });
     }
 
     public Timecard insertTimecard(Timecard timecard) throws Exception {
-        try {
-            validateTimecard(timecard);
-            openConnection();
-            return dl.insertTimecard(timecard);
-        } finally {
-            closeConnection();
-        }
+        return operation("insertTimecard", work -> {
+            beginTimecardWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
+            validateTimecard(work, timecard);
+            Timecard inserted = dl.insertTimecard(timecard);
+            if (inserted != null) {
+                TIMECARD_DAYS.put(inserted);
+            }
+            commitTimecardChange(work, timecard.getEmpId());
+            if (inserted != null) {
+                changed(work, RIT_USERNAME, "timecard", "create", inserted.getId(), inserted);
+            }
+            return inserted;
+        });
     }
 
     public Timecard updateTimecard(Timecard timecard) throws Exception {
-        try {
-            validateTimecard(timecard);
-            openConnection();
-            return dl.updateTimecard(timecard);
-        } finally {
-            closeConnection();
-        }
+        return operation("updateTimecard", work -> {
+            beginTimecardWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
+            Timecard existing = dl.getTimecard(timecard.getId());
+            if (existing == null) {
+                throw new Exception("Timecard not found");
+            }
+            // The update keeps the stored emp_id, which the checks below rely on
+            if (existing.getEmpId() != timecard.getEmpId()) {
+                throw new Exception("Timecard employee cannot be changed");
+            }
+            validateTimecard(work, timecard);
+            Timecard updated = dl.updateTimecard(timecard);
+            if (updated != null) {
+                TIMECARD_DAYS.put(updated);
+            }
+            commitTimecardChange(work, timecard.getEmpId());
+            changed(work, RIT_USERNAME, "timecard", "update", timecard.getId(), updated);
+            return updated;
+        });
     }
 
     public int deleteTimecard(int timecardId) throws Exception {
-        try {
-            openConnection();
+        return operation("deleteTimecard", work -> {
+            beginTimecardWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
             Timecard existing = dl.getTimecard(timecardId);
             if (existing == null) {
                 throw new Exception("Timecard not found");
             }
-            return dl.deleteTimecard(timecardId);
-        } finally {
-            closeConnection();
+            int deleted = dl.deleteTimecard(timecardId);
+            TIMECARD_DAYS.remove(existing);
+            commitTimecardChange(work, existing.getEmpId());
+            changed(work, RIT_USERNAME, "timecard", "delete", timecardId, null);
+            return deleted;
+        });
+    }
+
+    // Hours reports
+    public List<HoursTotal> getHours(String companyName, java.sql.Date from, java.sql.Date to,
+                                     Set<HoursGroup> groups, int deptId, int empId) throws Exception {
+        return operation("getHours", work -> {
+            validateCompany(companyName);
+            if (from == null || to == null) {
+                throw new Exception("From and to dates are required");
+            }
+            if (to.before(from)) {
+                throw new Exception("From date must not be after to date");
+            }
+            List<Employee> employees = findEmployees(work, companyName);
+            if (employees == null) {
+                employees = work.session().getAllEmployee(companyName);
+            }
+            List<Employee> selected = new ArrayList<>();
+            for (Employee emp : employees) {
+                if ((deptId == 0 || emp.getDeptId() == deptId) && (empId == 0 || emp.getId() == empId)) {
+                    selected.add(emp);
+                }
+            }
+            Map<Integer, TimecardDayIndex.Days> days = findTimecardDays(work, companyName, selected);
+            return HoursReport.sum(selected, days,
+                Temporals.epochDay(from.getTime()), Temporals.epochDay(to.getTime()), groups);
+        });
+    }
+
+    // The employees' days from the day index. Those not loaded yet are read
+    // together in one pass over the company's timecards.
+    private Map<Integer, TimecardDayIndex.Days> findTimecardDays(UnitOfWork work, String company,
+                                                                 List<Employee> employees) throws Exception {
+        Map<Integer, TimecardDayIndex.Days> days = new HashMap<>();
+        Map<Integer, List<Timecard>> missing = new HashMap<>();
+        for (Employee emp : employees) {
+            TimecardDayIndex.Days loaded = TIMECARD_DAYS.days(emp.getId());
+            if (loaded != null) {
+                days.put(emp.getId(), loaded);
+            } else {
+                missing.put(emp.getId(), new ArrayList<>());
+            }
+        }
+        if (missing.isEmpty()) {
+            return days;
+        }
+
+        long stamp = TIMECARD_DAYS.stamp();
+        try (RowCursor<Timecard> timecards = work.session().streamCompanyTimecards(company)) {
+            for (Timecard timecard = timecards.next(); timecard != null; timecard = timecards.next()) {
+                List<Timecard> employeeTimecards = missing.get(timecard.getEmpId());
+                if (employeeTimecards != null) {
+                    employeeTimecards.add(timecard);
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<Timecard>> employee : missing.entrySet()) {
+            days.put(employee.getKey(), TIMECARD_DAYS.loadIfUnchanged(employee.getKey(), employee.getValue(), stamp));
+        }
+        return days;
+    }
+
+    // Batch operations
+    // A batch is validated in memory against one snapshot of the stored rows,
+    // then every valid item is written with JDBC batching in one transaction.
+    // Invalid items are reported individually and do not stop the others.
+    private interface BatchCheck<T> {
+        void check(T item) throws Exception;
+    }
+
+    private interface BatchWrite<T> {
+        List<T> write(List<T> items) throws Exception;
+    }
+
+    private void validateBatchSize(List<?> items) throws Exception {
+        if (items == null || items.isEmpty()) {
+            throw new Exception("Batch must contain at least one item");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new Exception("Batch cannot contain more than " + MAX_BATCH_SIZE + " items");
+        }
+    }
+
+    private <T> List<BatchResult<T>> runBatch(List<T> items, BatchCheck<T> check, BatchWrite<T> write) throws Exception {
+        List<BatchResult<T>> results = new ArrayList<>(items.size());
+        List<T> valid = new ArrayList<>();
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.VALIDATE);
+        for (T item : items) {
+            try {
+                if (item == null) {
+                    throw new Exception("Batch item is empty");
+                }
+                check.check(item);
+                valid.add(item);
+                results.add(null);
+            } catch (Exception e) {
+                results.add(BatchResult.failure(e.getMessage()));
+            }
         }
+        RequestTrace.exit(previous);
+
+        Iterator<T> written = write.write(valid).iterator();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, BatchResult.success(written.next()));
+            }
+        }
+        return results;
+    }
+
+    public List<BatchResult<Department>> insertDepartments(String company, List<Department> departments) throws Exception {
+        return operation("insertDepartments", work -> {
+            validateCompany(company);
+            validateBatchSize(departments);
+            StorageSession dl = beginUnitOfWork(work);
+            ValidationSnapshot snapshot = new ValidationSnapshot(
+                dl.getAllDepartment(company), List.of(), List.of());
+            List<BatchResult<Department>> results = runBatch(departments, dept -> {
+                if (dept.getCompany() == null) {
+                    dept.setCompany(company);
+                }
+                if (!company.equals(dept.getCompany())) {
+                    throw new Exception("Department must belong to company " + company);
+                }
+                snapshot.validateDepartment(dept);
+                snapshot.accept(dept);
+            }, dl::insertDepartments);
+            commitUnitOfWork(work);
+            for (BatchResult<Department> result : results) {
+                if (result.isSuccess()) {
+                    changed(work, company, "department", "create", result.value().getId(), result.value());
+                    DEPARTMENTS.put(result.value().getId(), result.value());
+                }
+            }
+            DEPARTMENT_LISTS.remove(company);
+            return results;
+        });
+    }
+
+    public List<BatchResult<Employee>> insertEmployees(String company, List<Employee> employees) throws Exception {
+        return operation("insertEmployees", work -> {
+            validateCompany(company);
+            validateBatchSize(employees);
+            beginEmployeeWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
+            ValidationSnapshot snapshot = new ValidationSnapshot(
+                dl.getAllDepartment(company), dl.getAllEmployee(company), List.of());
+            List<BatchResult<Employee>> results = runBatch(employees, emp -> {
+                snapshot.validateEmployee(emp);
+                snapshot.accept(emp);
+            }, dl::insertEmployees);
+            for (BatchResult<Employee> result : results) {
+                if (result.isSuccess()) {
+                    MANAGERS.put(result.value().getId(), result.value().getMngId());
+                }
+            }
+            commitEmployeeChange(work);
+            for (BatchResult<Employee> result : results) {
+                if (result.isSuccess()) {
+                    changed(work, RIT_USERNAME, "employee", "create", result.value().getId(), result.value());
+                    EMPLOYEE_INDEX.put(result.value());
+                    EMPLOYEES.put(result.value().getId(), result.value());
+                }
+            }
+            EMPLOYEE_LISTS.clear();
+            return results;
+        });
+    }
+
+    public List<BatchResult<Timecard>> insertTimecards(String company, List<Timecard> timecards) throws Exception {
+        Set<Integer> empIds = new HashSet<>();
+        return operation("insertTimecards", work -> {
+            validateCompany(company);
+            validateBatchSize(timecards);
+            for (Timecard timecard : timecards) {
+                if (timecard != null) {
+                    empIds.add(timecard.getEmpId());
+                }
+            }
+            beginTimecardWrite(work);
+            StorageSession dl = beginUnitOfWork(work);
+            // Locking the employees serializes this batch with other timecard writes for them
+            ValidationSnapshot snapshot = new ValidationSnapshot(
+                List.of(), dl.lockEmployees(empIds), dl.getTimecardsForEmployees(empIds));
+            List<BatchResult<Timecard>> results = runBatch(timecards, timecard -> {
+                snapshot.validateTimecard(timecard);
+                snapshot.accept(timecard);
+            }, dl::insertTimecards);
+            for (BatchResult<Timecard> result : results) {
+                if (result.isSuccess()) {
+                    TIMECARD_DAYS.put(result.value());
+                }
+            }
+            commitTimecardChanges(work, empIds);
+            for (BatchResult<Timecard> result : results) {
+                if (result.isSuccess()) {
+                    changed(work, RIT_USERNAME, "timecard", "create", result.value().getId(), result.value());
+                }
+            }
+            return results;
+        });
     }
-}
\ No newline at end of file
+}
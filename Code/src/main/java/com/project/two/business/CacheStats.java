@@ -0,0 +1,8 @@
+package com.project.two.business;
+
+/**
+ * Point-in-time counters of one of BusinessLayer's caches. Evictions count
+ * entries dropped for size or age, not invalidations by writes.
+ */
+public record CacheStats(String name, int size, long hits, long misses, long evictions) {
+}
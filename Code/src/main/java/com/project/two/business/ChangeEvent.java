@@ -0,0 +1,22 @@
+package com.project.two.business;
+
+/**
+ * A committed mutation, as published on the {@link ChangeFeed}.
+ *
+ * entity is "department", "employee", "timecard" or "company"; action is
+ * "create", "update" or "delete", or "import" for a company import. data is
+ * the stored row after a create or update, the import summary after an
+ * import, and null after a delete. id is assigned on publishing, in commit
+ * order, starting from 1.
+ */
+public record ChangeEvent(long id, String company, String entity, String action, int entityId, Object data,
+                          long timeMillis) {
+
+    ChangeEvent(String company, String entity, String action, int entityId, Object data) {
+        this(0, company, entity, action, entityId, data, 0);
+    }
+
+    ChangeEvent published(long id, long timeMillis) {
+        return new ChangeEvent(id, company, entity, action, entityId, data, timeMillis);
+    }
+}
@@ -0,0 +1,108 @@
+package com.project.two.business;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most recent committed changes, kept in a ring buffer of fixed
+ * capacity so that a subscriber can resume after the id of the last event
+ * it saw.
+ *
+ * Publishing never waits on readers: each reader keeps its own position and
+ * copies events out of the ring without locking. Readers waiting for the
+ * next event share one future, completed by the publish that follows.
+ */
+public final class ChangeFeed {
+    private final AtomicReferenceArray<ChangeEvent> ring;
+    private final ReentrantLock publishLock = new ReentrantLock();
+
+    // Written under publishLock
+    private volatile long newest;
+    private volatile CompletableFuture<Void> nextPublish = new CompletableFuture<>();
+
+    /**
+     * Events read by one call, and the id to read after next time. missed is
+     * true when the events after the id asked for are no longer in the ring
+     * or were never published here, as after a restart; reading then goes
+     * on from the newest event.
+     */
+    public record Batch(List<ChangeEvent> events, boolean missed, long lastId) {
+    }
+
+    ChangeFeed(int capacity) {
+        ring = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    /**
+     * The id of the newest event, 0 before the first; where a new subscriber
+     * starts reading.
+     */
+    public long newest() {
+        return newest;
+    }
+
+    void publish(Collection<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Void> published;
+        publishLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (ChangeEvent event : events) {
+                long id = newest + 1;
+                ring.set(slot(id), event.published(id, now));
+                newest = id;
+            }
+            published = nextPublish;
+            nextPublish = new CompletableFuture<>();
+        } finally {
+            publishLock.unlock();
+        }
+        published.complete(null);
+    }
+
+    /**
+     * Up to max events after lastId, waiting up to waitNanos for the next
+     * one if there are none yet. An empty batch means the wait ran out.
+     */
+    public Batch read(long lastId, int max, long waitNanos) throws InterruptedException {
+        // Taken before newest, so a publish in between still ends the wait
+        CompletableFuture<Void> next = nextPublish;
+        long head = newest;
+        if (head == lastId && waitNanos > 0) {
+            try {
+                next.get(waitNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return new Batch(List.of(), false, lastId);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+            head = newest;
+        }
+        if (lastId > head || lastId < head - ring.length()) {
+            return new Batch(List.of(), true, head);
+        }
+        List<ChangeEvent> events = new ArrayList<>((int) Math.min(max, head - lastId));
+        for (long id = lastId + 1; id <= head && events.size() < max; id++) {
+            ChangeEvent event = ring.get(slot(id));
+            // Overwritten since head was read: this reader fell a ring behind
+            if (event == null || event.id() != id) {
+                return new Batch(List.of(), true, newest);
+            }
+            events.add(event);
+        }
+        return new Batch(events, false, lastId + events.size());
+    }
+
+    private int slot(long id) {
+        return (int) (id % ring.length());
+    }
+}
@@ -0,0 +1,9 @@
+package com.project.two.business;
+
+/**
+ * Point-in-time counters of one of BusinessLayer's coalesced reads: loads
+ * that went to the database, callers that shared a load already in flight
+ * and callers turned away because too many were waiting.
+ */
+public record CoalesceStats(String name, int inFlight, long loads, long joined, long rejected) {
+}
@@ -0,0 +1,233 @@
+package com.project.two.business;
+
+import com.project.two.data.StorageSession;
+import companydata.*;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Writes a stream of departments, employees and timecards into the unit of
+ * work of a company import.
+ *
+ * Each record is validated as it arrives against a ValidationSnapshot and
+ * rows are inserted in JDBC batches of batchSize. The ids in the records only
+ * link them to each other; every row is stored under a new id. A department
+ * must come before the employees in it and an employee before their
+ * timecards, but a manager may come after their reports, since those links
+ * are set once every employee is stored.
+ */
+final class CompanyImport {
+    private static final Logger LOG = Logger.getLogger(CompanyImport.class.getName());
+
+    private final StorageSession dl;
+    private final String company;
+    private final int batchSize;
+    private final ValidationSnapshot snapshot;
+
+    // Stored id by record id, 0 while the row waits in a batch
+    private final Map<Integer, Integer> deptIds = new HashMap<>();
+    private final Map<Integer, Integer> empIds = new HashMap<>();
+
+    // Record ids of the employees stored before their manager was, and the
+    // manager of every imported employee by stored id
+    private final Map<Integer, Integer> laterManagers = new HashMap<>();
+    private final Map<Integer, Integer> managers = new HashMap<>();
+
+    private final List<Department> departments = new ArrayList<>();
+    private final List<Integer> departmentRecordIds = new ArrayList<>();
+    private final List<Employee> employees = new ArrayList<>();
+    private final List<Integer> employeeRecordIds = new ArrayList<>();
+    private final List<Timecard> timecards = new ArrayList<>();
+    private final List<Employee> storedEmployees = new ArrayList<>();
+    private int departmentCount;
+    private int employeeCount;
+    private int timecardCount;
+
+    CompanyImport(StorageSession dl, String company, int batchSize) throws Exception {
+        this.dl = dl;
+        this.company = company;
+        this.batchSize = batchSize;
+        snapshot = new ValidationSnapshot(dl.getAllDepartment(company), dl.getAllEmployee(company), List.of());
+    }
+
+    ImportSummary run(ImportRecords records) throws Exception {
+        for (Object record = records.next(); record != null; record = records.next()) {
+            try {
+                add(record);
+            } catch (Exception e) {
+                throw new Exception(records.position() + ": " + e.getMessage());
+            }
+        }
+        flushDepartments();
+        flushEmployees();
+        flushTimecards();
+        linkManagers();
+        return new ImportSummary(departmentCount, employeeCount, timecardCount);
+    }
+
+    /**
+     * The employees stored by {@link #run}, with their final managers.
+     */
+    List<Employee> storedEmployees() {
+        return storedEmployees;
+    }
+
+    private void add(Object record) throws Exception {
+        if (record instanceof Department dept) {
+            add(dept);
+        } else if (record instanceof Employee emp) {
+            add(emp);
+        } else {
+            add((Timecard) record);
+        }
+    }
+
+    private void add(Department dept) throws Exception {
+        if (dept.getCompany() == null) {
+            dept.setCompany(company);
+        }
+        if (!company.equals(dept.getCompany())) {
+            throw new Exception("Department must belong to company " + company);
+        }
+        if (deptIds.putIfAbsent(dept.getId(), 0) != null) {
+            throw new Exception("Department " + dept.getId() + " appears more than once");
+        }
+        snapshot.validateDepartment(dept);
+        snapshot.accept(dept);
+        departments.add(dept);
+        departmentRecordIds.add(dept.getId());
+        if (departments.size() >= batchSize) {
+            flushDepartments();
+        }
+    }
+
+    private void add(Employee emp) throws Exception {
+        int recordId = emp.getId();
+        if (empIds.putIfAbsent(recordId, 0) != null) {
+            throw new Exception("Employee " + recordId + " appears more than once");
+        }
+        emp.setDeptId(storedDepartment(emp.getDeptId()));
+        if (emp.getMngId() != 0) {
+            Integer mngId = empIds.get(emp.getMngId());
+            if (mngId == null || mngId == 0) {
+                laterManagers.put(recordId, emp.getMngId());
+                emp.setMngId(0);
+            } else {
+                emp.setMngId(mngId);
+            }
+        }
+        snapshot.validateEmployee(emp);
+        snapshot.accept(emp);
+        employees.add(emp);
+        employeeRecordIds.add(recordId);
+        if (employees.size() >= batchSize) {
+            flushEmployees();
+        }
+    }
+
+    private void add(Timecard timecard) throws Exception {
+        timecard.setEmpId(storedEmployee(timecard.getEmpId()));
+        snapshot.validateTimecard(timecard);
+        snapshot.accept(timecard);
+        timecards.add(timecard);
+        if (timecards.size() >= batchSize) {
+            flushTimecards();
+        }
+    }
+
+    private int storedDepartment(int recordId) throws Exception {
+        Integer deptId = deptIds.get(recordId);
+        if (deptId == null) {
+            throw new Exception("Department " + recordId + " must come before the employees in it");
+        }
+        if (deptId == 0) {
+            flushDepartments();
+            deptId = deptIds.get(recordId);
+        }
+        return deptId;
+    }
+
+    private int storedEmployee(int recordId) throws Exception {
+        Integer empId = empIds.get(recordId);
+        if (empId == null) {
+            throw new Exception("Employee " + recordId + " must come before their timecards");
+        }
+        if (empId == 0) {
+            flushEmployees();
+            empId = empIds.get(recordId);
+        }
+        return empId;
+    }
+
+    private void flushDepartments() throws Exception {
+        if (departments.isEmpty()) {
+            return;
+        }
+        List<Department> stored = dl.insertDepartments(departments);
+        for (int i = 0; i < stored.size(); i++) {
+            deptIds.put(departmentRecordIds.get(i), stored.get(i).getId());
+            snapshot.stored(stored.get(i));
+        }
+        departmentCount += stored.size();
+        departments.clear();
+        departmentRecordIds.clear();
+        logProgress();
+    }
+
+    private void flushEmployees() throws Exception {
+        if (employees.isEmpty()) {
+            return;
+        }
+        List<Employee> stored = dl.insertEmployees(employees);
+        for (int i = 0; i < stored.size(); i++) {
+            Employee emp = stored.get(i);
+            empIds.put(employeeRecordIds.get(i), emp.getId());
+            managers.put(emp.getId(), emp.getMngId());
+            snapshot.stored(emp);
+            storedEmployees.add(emp);
+        }
+        employeeCount += stored.size();
+        employees.clear();
+        employeeRecordIds.clear();
+        logProgress();
+    }
+
+    private void flushTimecards() throws Exception {
+        if (timecards.isEmpty()) {
+            return;
+        }
+        timecardCount += dl.insertTimecards(timecards).size();
+        timecards.clear();
+        logProgress();
+    }
+
+    // Sets the managers that came after their reports, in one batch, once
+    // the whole chain of managers is known to be free of loops
+    private void linkManagers() throws Exception {
+        Map<Integer, Integer> updates = new HashMap<>();
+        for (Map.Entry<Integer, Integer> link : laterManagers.entrySet()) {
+            Integer mngId = empIds.get(link.getValue());
+            if (mngId == null) {
+                throw new Exception("Manager " + link.getValue() + " of employee " + link.getKey()
+                    + " is not in the import");
+            }
+            updates.put(empIds.get(link.getKey()), mngId);
+        }
+        managers.putAll(updates);
+        ManagerIndex.Tree tree = new ManagerIndex.Tree();
+        for (Map.Entry<Integer, Integer> manager : managers.entrySet()) {
+            if (!tree.put(manager.getKey(), manager.getValue())) {
+                throw new Exception("The managers of the imported employees form a loop");
+            }
+        }
+        dl.updateManagers(updates);
+        for (Employee emp : storedEmployees) {
+            emp.setMngId(managers.get(emp.getId()));
+        }
+    }
+
+    private void logProgress() {
+        LOG.info(() -> "Importing " + company + ": " + departmentCount + " departments, "
+            + employeeCount + " employees and " + timecardCount + " timecards written");
+    }
+}
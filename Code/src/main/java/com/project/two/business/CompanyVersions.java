@@ -0,0 +1,32 @@
+package com.project.two.business;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-company data versions, bumped after every committed mutation.
+ *
+ * Conditional GETs compare versions instead of data. Tags start with the time
+ * this process started, so counters that restart from 0 after a redeploy
+ * never repeat a tag a client already holds.
+ */
+final class CompanyVersions {
+    private final String boot = Long.toString(System.currentTimeMillis(), 36);
+    private final DataVersion initial = new DataVersion(boot + "-0", System.currentTimeMillis());
+    private final Map<String, Counter> versions = new ConcurrentHashMap<>();
+
+    DataVersion get(String company) {
+        Counter counter = company == null ? null : versions.get(company);
+        return counter == null ? initial : counter.version;
+    }
+
+    void bump(String company) {
+        versions.compute(company, (key, previous) -> {
+            long next = previous == null ? 1 : previous.count + 1;
+            return new Counter(next, new DataVersion(boot + "-" + next, System.currentTimeMillis()));
+        });
+    }
+
+    private record Counter(long count, DataVersion version) {
+    }
+}
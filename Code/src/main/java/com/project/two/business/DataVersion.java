@@ -0,0 +1,8 @@
+package com.project.two.business;
+
+/**
+ * Version of a company's data: an opaque tag that changes with every
+ * committed mutation, and the time of the latest one.
+ */
+public record DataVersion(String tag, long modifiedMillis) {
+}
@@ -0,0 +1,252 @@
+package com.project.two.business;
+
+import companydata.Employee;
+import java.util.*;
+
+/**
+ * In-memory secondary indexes of the company's employees, for searches:
+ * hash indexes of job, dept_id and mng_id, and sorted indexes of salary and
+ * hire day.
+ *
+ * Like the reporting tree, the indexes are built from the employee list the
+ * first time they are needed and are then kept current by the employee
+ * mutations in BusinessLayer. A search walks the most selective index it
+ * can and checks the other filters on those employees only, so a selective
+ * search costs time in proportion to its matches, not to the headcount.
+ */
+class EmployeeIndex {
+    private final WriteTracker writes = new WriteTracker();
+    private volatile Table table;
+
+    /**
+     * The loaded indexes, or null.
+     */
+    Table table() {
+        return table;
+    }
+
+    void beginWrite() {
+        writes.begin();
+    }
+
+    void endWrite() {
+        writes.end();
+    }
+
+    /**
+     * Stamp to take before reading the employees to load the indexes from.
+     */
+    long stamp() {
+        return writes.stamp();
+    }
+
+    /**
+     * Returns the loaded indexes, or builds them from employees read after
+     * the stamp was taken. They are only kept when no employee write has
+     * started since; otherwise they are used once.
+     */
+    synchronized Table loadIfUnchanged(List<Employee> employees, long stamp) {
+        if (table != null) {
+            return table;
+        }
+        Table loaded = new Table();
+        for (Employee emp : employees) {
+            loaded.put(emp);
+        }
+        if (writes.unchangedSince(stamp)) {
+            table = loaded;
+        }
+        return loaded;
+    }
+
+    // Records a new or changed employee; ignored until loaded, as are the
+    // changes below
+    void put(Employee emp) {
+        Table current = table;
+        if (current != null) {
+            current.put(emp);
+        }
+    }
+
+    void remove(int empId) {
+        Table current = table;
+        if (current != null) {
+            current.remove(empId);
+        }
+    }
+
+    // The company's employees are all gone
+    void clear() {
+        if (table != null) {
+            table = new Table();
+        }
+    }
+
+    /**
+     * Ids of the employees of the department, empty until loaded.
+     */
+    Set<Integer> inDepartment(int deptId) {
+        Table current = table;
+        return current == null ? Set.of() : current.ids(current.byDept, deptId);
+    }
+
+    /**
+     * Ids of the manager's direct reports, empty until loaded.
+     */
+    Set<Integer> reportsOf(int mngId) {
+        Table current = table;
+        return current == null ? Set.of() : current.ids(current.byManager, mngId);
+    }
+
+    static final class Table {
+        private final Map<Integer, Employee> byId = new HashMap<>();
+        private final Map<String, NavigableSet<Integer>> byJob = new HashMap<>();
+        private final Map<Integer, NavigableSet<Integer>> byDept = new HashMap<>();
+        private final Map<Integer, NavigableSet<Integer>> byManager = new HashMap<>();
+        private final NavigableMap<Double, NavigableSet<Integer>> bySalary = new TreeMap<>();
+        private final NavigableMap<Long, NavigableSet<Integer>> byHireDay = new TreeMap<>();
+
+        synchronized void put(Employee emp) {
+            remove(emp.getId());
+            byId.put(emp.getId(), emp);
+            add(byJob, emp.getJob(), emp.getId());
+            add(byDept, emp.getDeptId(), emp.getId());
+            add(byManager, emp.getMngId(), emp.getId());
+            add(bySalary, emp.getSalary(), emp.getId());
+            add(byHireDay, emp.getHireDate() == null ? null : EmployeeSearch.hireDay(emp), emp.getId());
+        }
+
+        private synchronized Set<Integer> ids(Map<Integer, NavigableSet<Integer>> index, int key) {
+            NavigableSet<Integer> ids = index.get(key);
+            return ids == null ? Set.of() : new TreeSet<>(ids);
+        }
+
+        synchronized void remove(int empId) {
+            Employee previous = byId.remove(empId);
+            if (previous != null) {
+                remove(byJob, previous.getJob(), empId);
+                remove(byDept, previous.getDeptId(), empId);
+                remove(byManager, previous.getMngId(), empId);
+                remove(bySalary, previous.getSalary(), empId);
+                remove(byHireDay, previous.getHireDate() == null ? null : EmployeeSearch.hireDay(previous), empId);
+            }
+        }
+
+        /**
+         * The first limit employees matching the search, in its order.
+         */
+        synchronized List<Employee> search(EmployeeSearch search, int limit) {
+            List<Employee> matches = new ArrayList<>();
+            for (int id : candidates(search)) {
+                Employee emp = byId.get(id);
+                if (search.matches(emp)) {
+                    matches.add(emp);
+                }
+            }
+            matches.sort(search.sort().order(search.descending()));
+            if (matches.size() > limit) {
+                return new ArrayList<>(matches.subList(0, limit));
+            }
+            return matches;
+        }
+
+        // The ids of the smallest hash index entry the search names, else of
+        // the narrower of its ranges, else of everyone. Choosing between two
+        // ranges costs no more than walking the narrower one twice.
+        private Iterable<Integer> candidates(EmployeeSearch search) {
+            Set<Integer> smallest = null;
+            if (search.job() != null) {
+                smallest = smaller(smallest, byJob.get(search.job()));
+            }
+            if (search.deptId() != null) {
+                smallest = smaller(smallest, byDept.get(search.deptId()));
+            }
+            if (search.mngId() != null) {
+                smallest = smaller(smallest, byManager.get(search.mngId()));
+            }
+            if (smallest != null) {
+                return smallest;
+            }
+            Collection<NavigableSet<Integer>> salaries = null;
+            if (search.minSalary() != null || search.maxSalary() != null) {
+                salaries = range(bySalary,
+                    search.minSalary() != null ? search.minSalary() : Double.NEGATIVE_INFINITY,
+                    search.maxSalary() != null ? search.maxSalary() : Double.POSITIVE_INFINITY);
+            }
+            Collection<NavigableSet<Integer>> hireDays = null;
+            if (search.hiredFrom() != null || search.hiredTo() != null) {
+                hireDays = range(byHireDay,
+                    search.hiredFrom() != null ? EmployeeSearch.epochDay(search.hiredFrom()) : Long.MIN_VALUE,
+                    search.hiredTo() != null ? EmployeeSearch.epochDay(search.hiredTo()) : Long.MAX_VALUE);
+            }
+            if (salaries != null && hireDays != null) {
+                return flatten(narrower(salaries, hireDays));
+            }
+            if (salaries != null) {
+                return flatten(salaries);
+            }
+            if (hireDays != null) {
+                return flatten(hireDays);
+            }
+            return byId.keySet();
+        }
+
+        private static Set<Integer> smaller(Set<Integer> current, Set<Integer> ids) {
+            Set<Integer> found = ids != null ? ids : Collections.emptySet();
+            return current == null || found.size() < current.size() ? found : current;
+        }
+
+        private static <K extends Comparable<K>> Collection<NavigableSet<Integer>> range(
+                NavigableMap<K, NavigableSet<Integer>> index, K from, K to) {
+            return from.compareTo(to) > 0 ? List.of() : index.subMap(from, true, to, true).values();
+        }
+
+        // Counts both ranges in step, always advancing the one counted lower,
+        // until that one runs out
+        private static Collection<NavigableSet<Integer>> narrower(Collection<NavigableSet<Integer>> a,
+                                                                  Collection<NavigableSet<Integer>> b) {
+            Iterator<NavigableSet<Integer>> inA = a.iterator();
+            Iterator<NavigableSet<Integer>> inB = b.iterator();
+            int countA = 0;
+            int countB = 0;
+            while (true) {
+                if (countA <= countB) {
+                    if (!inA.hasNext()) {
+                        return a;
+                    }
+                    countA += inA.next().size();
+                } else {
+                    if (!inB.hasNext()) {
+                        return b;
+                    }
+                    countB += inB.next().size();
+                }
+            }
+        }
+
+        private static List<Integer> flatten(Collection<NavigableSet<Integer>> range) {
+            List<Integer> ids = new ArrayList<>();
+            for (NavigableSet<Integer> entry : range) {
+                ids.addAll(entry);
+            }
+            return ids;
+        }
+
+        // Null keys, such as a missing salary, are not indexed
+        private static <K> void add(Map<K, NavigableSet<Integer>> index, K key, int id) {
+            if (key != null) {
+                index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+            }
+        }
+
+        private static <K> void remove(Map<K, NavigableSet<Integer>> index, K key, int id) {
+            NavigableSet<Integer> ids = key == null ? null : index.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.project.two.business;
+
+import com.project.two.util.Temporals;
+import companydata.Employee;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Filters and order of an employee search. A null filter matches everyone;
+ * ranges include both ends. Results are in id order unless sorted by
+ * another field, and at most limit are returned, as with a page of
+ * /employees.
+ */
+public record EmployeeSearch(String job, Integer deptId, Integer mngId, Double minSalary, Double maxSalary,
+                             java.sql.Date hiredFrom, java.sql.Date hiredTo, Sort sort, boolean descending,
+                             int limit) {
+
+    public enum Sort {
+        ID(Comparator.comparingInt(Employee::getId)),
+        NAME(Comparator.comparing(Employee::getEmpName, Comparator.nullsFirst(Comparator.naturalOrder()))),
+        SALARY(Comparator.comparing(Employee::getSalary, Comparator.nullsFirst(Comparator.naturalOrder()))),
+        HIRE_DATE(Comparator.comparing(Employee::getHireDate, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        private final Comparator<Employee> order;
+
+        Sort(Comparator<Employee> order) {
+            this.order = order;
+        }
+
+        // Ties are broken by id, so every order is stable across requests
+        Comparator<Employee> order(boolean descending) {
+            Comparator<Employee> byField = descending ? order.reversed() : order;
+            return this == ID ? byField : byField.thenComparingInt(Employee::getId);
+        }
+    }
+
+    /**
+     * Parses a sort= value: id, name, salary or hire_date, prefixed with -
+     * for descending. Missing or blank means by id.
+     */
+    public static Sort parseSort(String sort) {
+        String name = sortField(sort);
+        if (name.isEmpty()) {
+            return Sort.ID;
+        }
+        try {
+            return Sort.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort field: " + name
+                + ". Valid fields are id, name, salary, hire_date");
+        }
+    }
+
+    public static boolean isDescending(String sort) {
+        return sort != null && sort.trim().startsWith("-");
+    }
+
+    private static String sortField(String sort) {
+        if (sort == null) {
+            return "";
+        }
+        String name = sort.trim();
+        return name.startsWith("-") ? name.substring(1) : name;
+    }
+
+    boolean matches(Employee emp) {
+        return (job == null || job.equals(emp.getJob()))
+            && (deptId == null || emp.getDeptId() == deptId)
+            && (mngId == null || emp.getMngId() == mngId)
+            && (minSalary == null || (emp.getSalary() != null && emp.getSalary() >= minSalary))
+            && (maxSalary == null || (emp.getSalary() != null && emp.getSalary() <= maxSalary))
+            && (hiredFrom == null || (emp.getHireDate() != null && hireDay(emp) >= epochDay(hiredFrom)))
+            && (hiredTo == null || (emp.getHireDate() != null && hireDay(emp) <= epochDay(hiredTo)));
+    }
+
+    static long hireDay(Employee emp) {
+        return epochDay(emp.getHireDate());
+    }
+
+    static long epochDay(java.sql.Date date) {
+        return Temporals.epochDay(date.getTime());
+    }
+}
@@ -0,0 +1,111 @@
+package com.project.two.business;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded least-recently-used cache whose entries also expire after a fixed
+ * time to live.
+ *
+ * Every change made by a write path bumps a stamp. A reader that missed takes
+ * the stamp before querying the database and stores its result with
+ * {@link #putIfUnchanged}, so a row read just before a concurrent write
+ * commits cannot overwrite that write's invalidation. A cache with a
+ * maximum size of 0 stores nothing.
+ */
+final class EntityCache<K, V> {
+    private final String name;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long stamp;
+
+    EntityCache(String name, int maxEntries, long ttlSeconds) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    V get(K key) {
+        V value = null;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    value = entry.value;
+                } else {
+                    entries.remove(key);
+                    evictions.increment();
+                }
+            }
+        }
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    long stamp() {
+        return stamp;
+    }
+
+    // Write-through from a committed write
+    synchronized void put(K key, V value) {
+        stamp++;
+        store(key, value);
+    }
+
+    /**
+     * Stores a value read from the database, unless the cache was changed
+     * since the stamp was taken.
+     */
+    synchronized void putIfUnchanged(K key, V value, long readStamp) {
+        if (stamp == readStamp) {
+            store(key, value);
+        }
+    }
+
+    synchronized void remove(K key) {
+        stamp++;
+        entries.remove(key);
+    }
+
+    synchronized void removeIf(Predicate<V> filter) {
+        stamp++;
+        entries.values().removeIf(entry -> filter.test(entry.value));
+    }
+
+    synchronized void clear() {
+        stamp++;
+        entries.clear();
+    }
+
+    CacheStats getStats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return new CacheStats(name, size, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private void store(K key, V value) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
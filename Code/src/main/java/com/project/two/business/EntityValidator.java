@@ -0,0 +1,97 @@
+package com.project.two.business;
+
+import com.project.two.util.Temporals;
+import companydata.*;
+
+/**
+ * Field-level business rules that need no database access.
+ *
+ * Shared by the single-record operations in BusinessLayer and by batch
+ * validation against a {@link ValidationSnapshot}.
+ */
+public final class EntityValidator {
+
+    private EntityValidator() {
+    }
+
+    public static void checkDepartment(Department dept) throws Exception {
+        if (dept.getDeptNo() == null || dept.getDeptNo().trim().isEmpty()) {
+            throw new Exception("Department number is required");
+        }
+        if (dept.getDeptName() == null || dept.getDeptName().trim().isEmpty()) {
+            throw new Exception("Department name is required");
+        }
+        if (dept.getLocation() == null || dept.getLocation().trim().isEmpty()) {
+            throw new Exception("Location is required");
+        }
+    }
+
+    public static void checkEmployee(Employee emp) throws Exception {
+        // Remove the ID validation since it's an auto-generated integer
+        // Instead validate emp_no which is the employee number string
+        if (emp.getEmpNo() == null || emp.getEmpNo().trim().isEmpty()) {
+            throw new Exception("Employee number is required");
+        }
+        if (emp.getEmpName() == null || emp.getEmpName().trim().isEmpty()) {
+            throw new Exception("Employee name is required");
+        }
+        if (emp.getHireDate() == null) {
+            throw new Exception("Hire date is required");
+        }
+        long hireMillis = emp.getHireDate().getTime();
+        if (!Temporals.isWeekday(hireMillis)) {
+            throw new Exception("Hire date must be a weekday (Monday-Friday)");
+        }
+        if (emp.getSalary() <= 0) {
+            throw new Exception("Salary must be greater than zero");
+        }
+
+        // Validate hire date is not in future
+        if (hireMillis > System.currentTimeMillis()) {
+            throw new Exception("Hire date cannot be in the future");
+        }
+    }
+
+    public static void checkTimecard(Timecard timecard) throws Exception {
+        if (timecard.getStartTime() == null || timecard.getEndTime() == null) {
+            throw new Exception("Start time and end time are required");
+        }
+
+        long start = Temporals.localEpochSecond(timecard.getStartTime().getTime());
+        long end = Temporals.localEpochSecond(timecard.getEndTime().getTime());
+        long startDay = Math.floorDiv(start, Temporals.SECONDS_PER_DAY);
+        long endDay = Math.floorDiv(end, Temporals.SECONDS_PER_DAY);
+
+        // Check if times are on same day
+        if (startDay != endDay) {
+            throw new Exception("Start time and end time must be on the same day");
+        }
+
+        // Check if times are weekdays
+        if (Temporals.dayOfWeek(startDay) >= 5) {
+            throw new Exception("Timecards can only be submitted for weekdays");
+        }
+
+        // Check business hours (8:00 - 18:00)
+        if (!isValidTimeRange(start) || !isValidTimeRange(end)) {
+            throw new Exception("Times must be between 08:00 and 18:00");
+        }
+
+        // Check minimum duration (1 hour)
+        long duration = timecard.getEndTime().getTime() - timecard.getStartTime().getTime();
+        if (duration < 3600000) { // 1 hour in milliseconds
+            throw new Exception("Timecard duration must be at least 1 hour");
+        }
+
+        // Check end time is after start time
+        if (timecard.getEndTime().before(timecard.getStartTime())) {
+            throw new Exception("End time must be after start time");
+        }
+    }
+
+    // Any time within hours 8 through 18 of the day
+    private static boolean isValidTimeRange(long localEpochSecond) {
+        int hour = Math.floorMod(localEpochSecond, Temporals.SECONDS_PER_DAY) / 3600;
+        return hour >= 8 && hour <= 18;
+    }
+}
@@ -0,0 +1,52 @@
+package com.project.two.business;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * What the hours report adds up by. Employee and department may be combined
+ * with each other and with at most one of day, week and month.
+ */
+public enum HoursGroup {
+    EMPLOYEE, DEPARTMENT, DAY, WEEK, MONTH;
+
+    /**
+     * Parses a comma-separated group= value; missing or blank means by
+     * employee.
+     */
+    public static Set<HoursGroup> parse(String groups) {
+        Set<HoursGroup> parsed = EnumSet.noneOf(HoursGroup.class);
+        if (groups != null) {
+            for (String group : groups.split(",")) {
+                String name = group.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                try {
+                    parsed.add(valueOf(name.toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown hours grouping: " + name
+                        + ". Valid groupings are employee, department, day, week, month");
+                }
+            }
+        }
+        if (parsed.isEmpty()) {
+            parsed.add(EMPLOYEE);
+        }
+        int periods = 0;
+        for (HoursGroup group : parsed) {
+            if (group.isPeriod()) {
+                periods++;
+            }
+        }
+        if (periods > 1) {
+            throw new IllegalArgumentException("Only one of day, week and month can be grouped by");
+        }
+        return parsed;
+    }
+
+    boolean isPeriod() {
+        return this == DAY || this == WEEK || this == MONTH;
+    }
+}
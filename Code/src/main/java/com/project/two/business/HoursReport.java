@@ -0,0 +1,93 @@
+package com.project.two.business;
+
+import com.project.two.util.Temporals;
+import companydata.Employee;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Adds up the per-day totals of a {@link TimecardDayIndex} into an hours
+ * report, in one pass over each employee's days in the range. Large
+ * companies are summed in parallel across employees.
+ */
+final class HoursReport {
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    // Unused parts of the key are -1, or Long.MIN_VALUE for the period
+    private record Key(int empId, int deptId, long period) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key other) {
+            int compare = Integer.compare(empId, other.empId);
+            if (compare == 0) {
+                compare = Integer.compare(deptId, other.deptId);
+            }
+            return compare != 0 ? compare : Long.compare(period, other.period);
+        }
+    }
+
+    private HoursReport() {
+    }
+
+    static List<HoursTotal> sum(List<Employee> employees, Map<Integer, TimecardDayIndex.Days> days,
+                                long fromDay, long toDay, Set<HoursGroup> groups) {
+        HoursGroup period = periodOf(groups);
+        boolean byEmployee = groups.contains(HoursGroup.EMPLOYEE);
+        boolean byDepartment = groups.contains(HoursGroup.DEPARTMENT);
+
+        Map<Key, Long> seconds = (employees.size() >= PARALLEL_THRESHOLD
+            ? employees.parallelStream()
+            : employees.stream())
+            .collect(HashMap::new, (totals, emp) -> {
+                TimecardDayIndex.Days employeeDays = days.get(emp.getId());
+                if (employeeDays == null) {
+                    return;
+                }
+                int empId = byEmployee ? emp.getId() : -1;
+                int deptId = byDepartment ? emp.getDeptId() : -1;
+                employeeDays.forEachDay(fromDay, toDay, (day, worked) ->
+                    totals.merge(new Key(empId, deptId, periodStart(period, day)), worked, Long::sum));
+            }, (totals, more) -> more.forEach((key, worked) -> totals.merge(key, worked, Long::sum)));
+
+        List<HoursTotal> report = new ArrayList<>(seconds.size());
+        for (Map.Entry<Key, Long> total : new TreeMap<>(seconds).entrySet()) {
+            Key key = total.getKey();
+            report.add(new HoursTotal(
+                byEmployee ? key.empId() : null,
+                byDepartment ? key.deptId() : null,
+                period == HoursGroup.DAY ? date(key.period()) : null,
+                period == HoursGroup.WEEK ? date(key.period()) : null,
+                period == HoursGroup.MONTH ? date(key.period()) : null,
+                // Hours to two decimals
+                Math.round(total.getValue() / 36.0) / 100.0));
+        }
+        return report;
+    }
+
+    private static HoursGroup periodOf(Set<HoursGroup> groups) {
+        for (HoursGroup group : groups) {
+            if (group.isPeriod()) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    // The epoch day the day's period starts on; weeks start on Monday
+    private static long periodStart(HoursGroup period, long epochDay) {
+        if (period == null) {
+            return Long.MIN_VALUE;
+        }
+        switch (period) {
+            case WEEK:
+                return epochDay - Temporals.dayOfWeek(epochDay);
+            case MONTH:
+                return LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+            default:
+                return epochDay;
+        }
+    }
+
+    private static java.sql.Date date(long epochDay) {
+        return java.sql.Date.valueOf(LocalDate.ofEpochDay(epochDay));
+    }
+}
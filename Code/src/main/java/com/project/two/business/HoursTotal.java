@@ -0,0 +1,9 @@
+package com.project.two.business;
+
+/**
+ * One row of the hours report. The fields that were not grouped by are
+ * null; day, week and month are the first day of the period.
+ */
+public record HoursTotal(Integer empId, Integer deptId, java.sql.Date day, java.sql.Date week,
+                         java.sql.Date month, double hours) {
+}
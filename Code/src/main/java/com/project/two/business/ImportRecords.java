@@ -0,0 +1,19 @@
+package com.project.two.business;
+
+/**
+ * The records of a company import, read one at a time.
+ */
+public interface ImportRecords {
+
+    /**
+     * Returns the next Department, Employee or Timecard, or null when there
+     * are no more.
+     */
+    Object next() throws Exception;
+
+    /**
+     * Where the record last returned came from, such as "Line 12", for
+     * error messages.
+     */
+    String position();
+}
@@ -0,0 +1,7 @@
+package com.project.two.business;
+
+/**
+ * Number of rows of each kind a company import wrote.
+ */
+public record ImportSummary(int departments, int employees, int timecards) {
+}
@@ -0,0 +1,146 @@
+package com.project.two.business;
+
+import companydata.Employee;
+import java.util.*;
+
+/**
+ * In-memory reporting tree of the company's employees, kept as manager and
+ * direct-report adjacency maps of the mng_id links.
+ *
+ * The tree is built from the employee list the first time it is needed and
+ * is then kept current by the employee mutations in BusinessLayer, so an
+ * org chart is read without a query per level and a manager change is
+ * checked for loops by walking up from the new manager, in O(depth).
+ */
+class ManagerIndex {
+    private final WriteTracker writes = new WriteTracker();
+    private volatile Tree tree;
+
+    /**
+     * The loaded tree, or null.
+     */
+    Tree tree() {
+        return tree;
+    }
+
+    void beginWrite() {
+        writes.begin();
+    }
+
+    void endWrite() {
+        writes.end();
+    }
+
+    /**
+     * Stamp to take before reading the employees to load the tree from.
+     */
+    long stamp() {
+        return writes.stamp();
+    }
+
+    /**
+     * Returns the loaded tree, or builds one from employees read after the
+     * stamp was taken. The new tree is only kept when no employee write has
+     * started since; otherwise it is used once.
+     */
+    synchronized Tree loadIfUnchanged(List<Employee> employees, long stamp) {
+        if (tree != null) {
+            return tree;
+        }
+        Tree loaded = new Tree();
+        for (Employee emp : employees) {
+            loaded.put(emp.getId(), emp.getMngId());
+        }
+        if (writes.unchangedSince(stamp)) {
+            tree = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * Records a new employee or a manager change. Returns false, changing
+     * nothing, when the change would close a loop. Ignored until loaded.
+     */
+    boolean put(int empId, int mngId) {
+        Tree current = tree;
+        return current == null || current.put(empId, mngId);
+    }
+
+    // Forgets the tree so the next use reloads it
+    void invalidate() {
+        tree = null;
+    }
+
+    static final class Tree {
+        private final Map<Integer, Integer> managerOf = new HashMap<>();
+        private final Map<Integer, NavigableSet<Integer>> reportsOf = new HashMap<>();
+
+        /**
+         * Whether target is fromId or one of its managers. Stops at a loop
+         * already in the data.
+         */
+        synchronized boolean reaches(int fromId, int target) {
+            Set<Integer> seen = new HashSet<>();
+            for (int id = fromId; id != 0 && seen.add(id); id = managerOf.getOrDefault(id, 0)) {
+                if (id == target) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized boolean put(int empId, int mngId) {
+            if (mngId != 0 && reaches(mngId, empId)) {
+                return false;
+            }
+            Integer previous = managerOf.put(empId, mngId);
+            if (previous != null && previous != 0) {
+                Set<Integer> reports = reportsOf.get(previous);
+                if (reports != null) {
+                    reports.remove(empId);
+                }
+            }
+            if (mngId != 0) {
+                reportsOf.computeIfAbsent(mngId, id -> new TreeSet<>()).add(empId);
+            }
+            return true;
+        }
+
+        /**
+         * The employee's managers, from the direct manager up to the top.
+         */
+        synchronized List<Integer> managers(int empId) {
+            List<Integer> chain = new ArrayList<>();
+            Set<Integer> seen = new HashSet<>();
+            seen.add(empId);
+            for (int id = managerOf.getOrDefault(empId, 0); id != 0 && seen.add(id); id = managerOf.getOrDefault(id, 0)) {
+                chain.add(id);
+            }
+            return chain;
+        }
+
+        /**
+         * Everyone below the manager, level by level with each manager's
+         * reports by id, down to maxDepth levels; 0 means all levels.
+         */
+        synchronized List<Integer> reports(int mngId, int maxDepth) {
+            List<Integer> below = new ArrayList<>();
+            Set<Integer> seen = new HashSet<>();
+            seen.add(mngId);
+            List<Integer> level = List.of(mngId);
+            for (int depth = 1; !level.isEmpty() && (maxDepth <= 0 || depth <= maxDepth); depth++) {
+                List<Integer> next = new ArrayList<>();
+                for (int id : level) {
+                    for (int report : reportsOf.getOrDefault(id, Collections.emptyNavigableSet())) {
+                        if (seen.add(report)) {
+                            next.add(report);
+                        }
+                    }
+                }
+                below.addAll(next);
+                level = next;
+            }
+            return below;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.project.two.business;
+
+import com.project.two.data.RowCursor;
+
+/**
+ * One page of a keyset-paginated list.
+ *
+ * nextAfter is the id to pass as "after" to fetch the following page, or 0
+ * when this is the last page. The rows cursor must be closed by the caller.
+ */
+public record Page<T>(RowCursor<T> rows, int nextAfter) {
+
+    public boolean hasNext() {
+        return nextAfter != 0;
+    }
+}
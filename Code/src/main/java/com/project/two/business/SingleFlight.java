@@ -0,0 +1,89 @@
+package com.project.two.business;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent identical reads: the first caller for a key runs the
+ * load and every caller that arrives while it is in flight waits for its
+ * result instead of running the same query again.
+ *
+ * Waiting is bounded. A flight accepts at most maxWaiters callers besides its
+ * leader and each waits at most waitMillis; callers beyond that fail rather
+ * than queue behind a load that may be stuck. Results are shared, so loads
+ * must return values nobody modifies.
+ */
+final class SingleFlight<K, V> {
+    private final String name;
+    private final int maxWaiters;
+    private final long waitMillis;
+    private final ConcurrentHashMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    interface Load<V> {
+        V load() throws Exception;
+    }
+
+    SingleFlight(String name, int maxWaiters, long waitMillis) {
+        this.name = name;
+        this.maxWaiters = maxWaiters;
+        this.waitMillis = waitMillis;
+    }
+
+    V run(K key, Load<V> load) throws Exception {
+        Flight<V> mine = new Flight<>();
+        Flight<V> flight = flights.putIfAbsent(key, mine);
+        if (flight == null) {
+            return lead(key, mine, load);
+        }
+        if (flight.waiters.incrementAndGet() > maxWaiters) {
+            flight.waiters.decrementAndGet();
+            rejected.increment();
+            throw new Exception("Too many requests are waiting for the same data");
+        }
+        joined.increment();
+        try {
+            return flight.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The leader's failure is every waiter's failure
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw new Exception(e.getCause());
+        } catch (TimeoutException e) {
+            throw new Exception("Timed out waiting for the same data to load");
+        } finally {
+            flight.waiters.decrementAndGet();
+        }
+    }
+
+    private V lead(K key, Flight<V> flight, Load<V> load) throws Exception {
+        loads.increment();
+        try {
+            V value = load.load();
+            flight.result.complete(value);
+            return value;
+        } catch (Throwable t) {
+            flight.result.completeExceptionally(t);
+            throw t;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    CoalesceStats getStats() {
+        return new CoalesceStats(name, flights.size(), loads.sum(), joined.sum(), rejected.sum());
+    }
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+    }
+}
@@ -0,0 +1,160 @@
+package com.project.two.business;
+
+import com.project.two.util.Temporals;
+import companydata.Timecard;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the work days each employee already has a timecard for,
+ * and of the time worked on each of those days.
+ *
+ * An employee's days are loaded from the database the first time they are
+ * needed and are then kept current by the timecard mutations in
+ * BusinessLayer, so the same-day conflict check is a map lookup instead of a
+ * fetch of every timecard the employee ever filed, and the per-day totals
+ * are the rollups the hours report adds up.
+ */
+class TimecardDayIndex {
+    private final Map<Integer, Days> employees = new ConcurrentHashMap<>();
+
+    // Days read without the employee lock are only kept when no timecard
+    // write could have been missed
+    private final WriteTracker writes = new WriteTracker();
+
+    static long epochDay(Timestamp time) {
+        return Temporals.epochDay(time.getTime());
+    }
+
+    static long secondsWorked(Timecard timecard) {
+        return (timecard.getEndTime().getTime() - timecard.getStartTime().getTime()) / 1000;
+    }
+
+    boolean isLoaded(int empId) {
+        return employees.containsKey(empId);
+    }
+
+    // Callers hold the employee lock, so no write can slip in
+    void load(int empId, List<Timecard> timecards) {
+        employees.putIfAbsent(empId, daysOf(timecards));
+    }
+
+    void beginWrite() {
+        writes.begin();
+    }
+
+    void endWrite() {
+        writes.end();
+    }
+
+    /**
+     * Stamp to take before reading timecards without the employee lock.
+     */
+    long stamp() {
+        return writes.stamp();
+    }
+
+    /**
+     * Returns the employee's days, loading them from timecards read after
+     * the stamp was taken. The loaded days are only kept in the index when
+     * no timecard write has started since; otherwise they are used once.
+     */
+    Days loadIfUnchanged(int empId, List<Timecard> timecards, long stamp) {
+        Days loaded = daysOf(timecards);
+        Days days = employees.computeIfAbsent(empId, id -> writes.unchangedSince(stamp) ? loaded : null);
+        return days != null ? days : loaded;
+    }
+
+    Days days(int empId) {
+        return employees.get(empId);
+    }
+
+    /**
+     * Returns the id of the employee's timecard on the given day, or 0 when
+     * the day is free.
+     */
+    int timecardOn(int empId, long epochDay) {
+        Days days = employees.get(empId);
+        return days == null ? 0 : days.timecardOn(epochDay);
+    }
+
+    // Records a new or moved timecard; ignored until the employee is loaded
+    void put(Timecard timecard) {
+        Days days = employees.get(timecard.getEmpId());
+        if (days != null) {
+            days.put(timecard.getId(), epochDay(timecard.getStartTime()), secondsWorked(timecard));
+        }
+    }
+
+    void remove(Timecard timecard) {
+        Days days = employees.get(timecard.getEmpId());
+        if (days != null) {
+            days.remove(timecard.getId());
+        }
+    }
+
+    // Forgets an employee so the next check reloads their days
+    void invalidate(int empId) {
+        employees.remove(empId);
+    }
+
+    void clear() {
+        employees.clear();
+    }
+
+    private static Days daysOf(List<Timecard> timecards) {
+        Days days = new Days();
+        for (Timecard timecard : timecards) {
+            days.put(timecard.getId(), epochDay(timecard.getStartTime()), secondsWorked(timecard));
+        }
+        return days;
+    }
+
+    interface DaySeconds {
+        void accept(long epochDay, long seconds);
+    }
+
+    /**
+     * One employee's timecards by day.
+     */
+    static final class Days {
+        private final NavigableMap<Long, Integer> idByDay = new TreeMap<>();
+        private final NavigableMap<Long, Long> secondsByDay = new TreeMap<>();
+        private final Map<Integer, Card> cards = new HashMap<>();
+
+        private record Card(long epochDay, long seconds) {
+        }
+
+        synchronized int timecardOn(long epochDay) {
+            Integer id = idByDay.get(epochDay);
+            return id == null ? 0 : id;
+        }
+
+        /**
+         * Passes the seconds worked on each day from fromDay through toDay
+         * that has a timecard, in day order.
+         */
+        synchronized void forEachDay(long fromDay, long toDay, DaySeconds action) {
+            for (Map.Entry<Long, Long> day : secondsByDay.subMap(fromDay, true, toDay, true).entrySet()) {
+                action.accept(day.getKey(), day.getValue());
+            }
+        }
+
+        synchronized void put(int timecardId, long epochDay, long seconds) {
+            remove(timecardId);
+            idByDay.put(epochDay, timecardId);
+            secondsByDay.merge(epochDay, seconds, Long::sum);
+            cards.put(timecardId, new Card(epochDay, seconds));
+        }
+
+        synchronized void remove(int timecardId) {
+            Card card = cards.remove(timecardId);
+            if (card != null) {
+                idByDay.remove(card.epochDay(), timecardId);
+                secondsByDay.computeIfPresent(card.epochDay(),
+                    (day, total) -> total == card.seconds() ? null : total - card.seconds());
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.project.two.business;
+
+import companydata.*;
+import java.util.*;
+
+/**
+ * In-memory copy of the existing rows a batch is validated against.
+ *
+ * The validate methods only check; each accepted item is then recorded with
+ * accept, so conflicts between items of the same batch are reported as well
+ * as conflicts with stored rows. Not thread-safe; one snapshot serves one
+ * batch.
+ */
+public final class ValidationSnapshot {
+    private final Set<String> deptNos = new HashSet<>();
+    private final Set<Integer> deptIds = new HashSet<>();
+    private final Set<Integer> empIds = new HashSet<>();
+    private final Set<String> empNos = new HashSet<>();
+    private final Map<Integer, Set<Long>> daysByEmployee = new HashMap<>();
+
+    public ValidationSnapshot(List<Department> departments, List<Employee> employees,
+                              List<Timecard> timecards) {
+        for (Department dept : departments) {
+            deptIds.add(dept.getId());
+            deptNos.add(dept.getDeptNo());
+        }
+        for (Employee emp : employees) {
+            empIds.add(emp.getId());
+            empNos.add(emp.getEmpNo());
+        }
+        for (Timecard timecard : timecards) {
+            workDays(timecard.getEmpId()).add(TimecardDayIndex.epochDay(timecard.getStartTime()));
+        }
+    }
+
+    public void validateDepartment(Department dept) throws Exception {
+        EntityValidator.checkDepartment(dept);
+        if (deptNos.contains(dept.getDeptNo())) {
+            throw new Exception("Department number must be unique across all companies");
+        }
+    }
+
+    public void validateEmployee(Employee emp) throws Exception {
+        EntityValidator.checkEmployee(emp);
+        if (!deptIds.contains(emp.getDeptId())) {
+            throw new Exception("Department does not exist");
+        }
+        if (emp.getMngId() != 0 && !empIds.contains(emp.getMngId())) {
+            throw new Exception("Manager does not exist");
+        }
+        if (empNos.contains(emp.getEmpNo())) {
+            throw new Exception("Employee number must be unique");
+        }
+    }
+
+    public void validateTimecard(Timecard timecard) throws Exception {
+        EntityValidator.checkTimecard(timecard);
+        if (!empIds.contains(timecard.getEmpId())) {
+            throw new Exception("Employee does not exist");
+        }
+        Set<Long> days = daysByEmployee.get(timecard.getEmpId());
+        if (days != null && days.contains(TimecardDayIndex.epochDay(timecard.getStartTime()))) {
+            throw new Exception("Employee already has a timecard for this day");
+        }
+    }
+
+    // New rows have no id yet, so only their unique keys are recorded
+    public void accept(Department dept) {
+        deptNos.add(dept.getDeptNo());
+    }
+
+    public void accept(Employee emp) {
+        empNos.add(emp.getEmpNo());
+    }
+
+    public void accept(Timecard timecard) {
+        workDays(timecard.getEmpId()).add(TimecardDayIndex.epochDay(timecard.getStartTime()));
+    }
+
+    // Once written, accepted rows can be referred to by their new ids
+    public void stored(Department dept) {
+        deptIds.add(dept.getId());
+    }
+
+    public void stored(Employee emp) {
+        empIds.add(emp.getId());
+    }
+
+    private Set<Long> workDays(int empId) {
+        return daysByEmployee.computeIfAbsent(empId, id -> new HashSet<>());
+    }
+}
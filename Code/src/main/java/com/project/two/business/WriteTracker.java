@@ -0,0 +1,41 @@
+package com.project.two.business;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the writes to an in-memory index that have started and finished.
+ *
+ * The indexes are updated before commit, while the writer still holds its
+ * row locks, so a load that reads the database without those locks could
+ * miss a write that is in progress. A load takes a stamp first and keeps
+ * what it read only if no write was in progress then or has started since.
+ */
+final class WriteTracker {
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+
+    /**
+     * Every call must be followed by {@link #end()} once the write has
+     * committed or failed.
+     */
+    void begin() {
+        started.incrementAndGet();
+    }
+
+    void end() {
+        finished.incrementAndGet();
+    }
+
+    /**
+     * Stamp to take before reading, or -1 while a write is in progress.
+     */
+    long stamp() {
+        long finishedWrites = finished.get();
+        long startedWrites = started.get();
+        return startedWrites == finishedWrites ? startedWrites : -1;
+    }
+
+    boolean unchangedSince(long stamp) {
+        return stamp >= 0 && started.get() == stamp;
+    }
+}
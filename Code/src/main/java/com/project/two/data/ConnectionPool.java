@@ -0,0 +1,136 @@
+package com.project.two.data;
+
+import com.project.two.metrics.RequestTrace;
+import com.project.two.util.Config;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Application-wide pool of MySQL connections.
+ *
+ * companydata.DataLayer dials MySQL inside every one of its methods. The pool
+ * keeps a bounded set of connections open instead, validates them before
+ * handing them out and lets the driver cache prepared statements per
+ * connection. All settings can be overridden through {@link Config}.
+ */
+public final class ConnectionPool {
+    private static final String PREFIX = "companyservices.db.";
+
+    private static volatile ConnectionPool instance;
+
+    private final HikariDataSource dataSource;
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private ConnectionPool(HikariConfig config) {
+        dataSource = new HikariDataSource(config);
+    }
+
+    public static ConnectionPool getInstance() {
+        ConnectionPool pool = instance;
+        if (pool == null) {
+            synchronized (ConnectionPool.class) {
+                pool = instance;
+                if (pool == null) {
+                    pool = new ConnectionPool(createConfig());
+                    instance = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * The pool if it has been created, without creating it.
+     */
+    public static ConnectionPool getInstanceIfCreated() {
+        return instance;
+    }
+
+    private static HikariConfig createConfig() {
+        String host = Config.getString(PREFIX + "host", "bdfvks-docker.ist.rit.edu");
+        String database = Config.getString(PREFIX + "name", "njw1389_company");
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("companydata");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(Config.getString(PREFIX + "url",
+                "jdbc:mysql://" + host + "/" + database + "?useSSL=false"));
+        config.setUsername(Config.getString(PREFIX + "user", "576"));
+        config.setPassword(Config.getString(PREFIX + "password", "576"));
+
+        // Pool bounds and health checks
+        config.setMaximumPoolSize(Config.getInt(PREFIX + "pool.maxSize", 10));
+        config.setMinimumIdle(Config.getInt(PREFIX + "pool.minIdle", 2));
+        config.setConnectionTimeout(Config.getLong(PREFIX + "pool.maxWaitMillis", 5000));
+        config.setValidationTimeout(Config.getLong(PREFIX + "pool.validationTimeoutMillis", 2000));
+        config.setKeepaliveTime(Config.getLong(PREFIX + "pool.keepaliveMillis", 120000));
+        config.setIdleTimeout(Config.getLong(PREFIX + "pool.idleTimeoutMillis", 600000));
+        config.setMaxLifetime(Config.getLong(PREFIX + "pool.maxLifetimeMillis", 1800000));
+
+        // Prepared-statement cache kept by Connector/J on each pooled connection
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize",
+                Config.getString(PREFIX + "pool.statementCacheSize", "250"));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useLocalSessionState", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        config.addDataSourceProperty("cacheServerConfiguration", "true");
+
+        // Per-request statement counts and timings for the metrics endpoint
+        config.addDataSourceProperty("queryInterceptors", QueryMetricsInterceptor.class.getName());
+        return config;
+    }
+
+    /**
+     * Borrows a connection from the pool. Closing the connection returns it.
+     * Fails once the configured max wait elapses without a free connection.
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        RequestTrace.Phase previous = RequestTrace.enter(RequestTrace.Phase.CONNECT);
+        try {
+            Connection connection = dataSource.getConnection();
+            borrowed.increment();
+            RequestTrace.countConnection();
+            return connection;
+        } catch (SQLTransientConnectionException e) {
+            timeouts.increment();
+            throw e;
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+            RequestTrace.exit(previous);
+        }
+    }
+
+    public PoolStats getStats() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return new PoolStats(
+            pool == null ? 0 : pool.getActiveConnections(),
+            pool == null ? 0 : pool.getIdleConnections(),
+            pool == null ? 0 : pool.getTotalConnections(),
+            pool == null ? 0 : pool.getThreadsAwaitingConnection(),
+            dataSource.getMaximumPoolSize(),
+            borrowed.sum(),
+            timeouts.sum(),
+            waitNanos.sum() / 1_000_000);
+    }
+
+    public void shutdown() {
+        dataSource.close();
+    }
+
+    /**
+     * Point-in-time view of the pool.
+     */
+    public record PoolStats(int active, int idle, int total, int waiting, int maxSize,
+                            long borrowed, long timeouts, long totalWaitMillis) {
+    }
+}
@@ -0,0 +1,718 @@
+package com.project.two.data;
+
+import companydata.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * The MySQL {@link StorageSession}: database operations of
+ * companydata.DataLayer, run over a single connection borrowed from the
+ * {@link ConnectionPool}.
+ *
+ * Uses the same SQL as DataLayer, so results are interchangeable. Closing the
+ * session hands the connection back to the pool, rolling back any transaction
+ * that was not committed. A session is meant for one thread at a time.
+ */
+public class DataSession implements StorageSession {
+    private final Connection connection;
+    private boolean inTransaction;
+
+    public DataSession(ConnectionPool pool) throws SQLException {
+        connection = pool.borrow();
+    }
+
+    /**
+     * Starts a REPEATABLE READ transaction. Plain reads made while validating
+     * take no locks, so concurrent creates in a company do not deadlock on
+     * shared next-key locks; the rows a write depends on are locked
+     * explicitly with FOR UPDATE, as {@link #lockEmployee} does for
+     * timecard writes.
+     */
+    public void begin() throws SQLException {
+        if (!inTransaction) {
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setAutoCommit(false);
+            inTransaction = true;
+        }
+    }
+
+    /**
+     * Starts a transaction whose reads all see the same snapshot, so an
+     * export made of several queries is consistent. It writes nothing and is
+     * rolled back when the session closes.
+     */
+    public void beginSnapshot() throws SQLException {
+        if (!inTransaction) {
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setAutoCommit(false);
+            inTransaction = true;
+        }
+    }
+
+    public void commit() throws SQLException {
+        if (inTransaction) {
+            connection.commit();
+            endTransaction();
+        }
+    }
+
+    public void rollback() {
+        if (inTransaction) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                // Nothing else to undo; the pool discards broken connections
+            }
+            endTransaction();
+        }
+    }
+
+    private void endTransaction() {
+        inTransaction = false;
+        try {
+            connection.setAutoCommit(true);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        } catch (SQLException e) {
+            // Reset again by the pool when the connection is returned
+        }
+    }
+
+    @Override
+    public void close() {
+        rollback();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // The pool evicts connections that fail to close cleanly
+        }
+    }
+
+    // Company operations
+    public int deleteCompany(String company) throws SQLException {
+        int deleted = 0;
+        List<Department> departments = getAllDepartment(company);
+        List<Employee> employees = getAllEmployee(company);
+        if (employees.size() > 0) {
+            // Park every employee under a placeholder manager so that
+            // employees can be deleted in any order
+            Employee placeholder = new Employee();
+            placeholder.setMngId(0);
+            placeholder.setEmpNo("mgr delete");
+            placeholder.setEmpName("mgr delete");
+            placeholder.setSalary(0.0);
+            placeholder.setJob("delete");
+            placeholder.setDeptId(employees.get(0).getDeptId());
+            placeholder.setHireDate(new java.sql.Date(new Date().getTime()));
+            placeholder = insertEmployee(placeholder);
+            int placeholderId = placeholder.getId();
+
+            for (Employee emp : employees) {
+                if (emp.getId() == placeholderId) {
+                    continue;
+                }
+                emp.setMngId(placeholderId);
+                updateEmployee(emp);
+                for (Timecard timecard : getAllTimecard(emp.getId())) {
+                    deleteTimecard(timecard.getId());
+                    deleted++;
+                }
+            }
+            for (Employee emp : employees) {
+                if (emp.getId() != placeholderId) {
+                    deleteEmployee(emp.getId());
+                    deleted++;
+                }
+            }
+            deleteEmployee(placeholderId);
+            deleted++;
+        }
+        for (Department dept : departments) {
+            deleteDepartment(company, dept.getId());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Streams the company's departments, then its employees, each in id
+     * order, then their timecards. A query runs only once the one before it
+     * is used up, since a streaming result set occupies the connection until
+     * it is read.
+     */
+    public RowCursor<Object> streamCompany(String company) throws SQLException {
+        return new ChainedCursor(List.of(
+            () -> {
+                PreparedStatement ps = prepareStreaming(
+                    "SELECT * FROM department WHERE company = ? ORDER BY dept_id");
+                ps.setString(1, company);
+                return new ResultSetCursor<>(ps, DataSession::toDepartment);
+            },
+            () -> {
+                PreparedStatement ps = prepareStreaming(
+                    "SELECT * FROM employee LEFT JOIN department USING(dept_id) WHERE department.company = ? ORDER BY employee.emp_id");
+                ps.setString(1, company);
+                return new ResultSetCursor<>(ps, DataSession::toEmployee);
+            },
+            () -> streamCompanyTimecards(company)));
+    }
+
+    // Department operations
+    public List<Department> getAllDepartment(String company) throws SQLException {
+        List<Department> departments = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM department WHERE company = ?")) {
+            ps.setString(1, company);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    departments.add(toDepartment(rs));
+                }
+            }
+        }
+        return departments;
+    }
+
+    /**
+     * Streams up to limit departments with ids greater than afterId, in id order.
+     */
+    public RowCursor<Department> streamDepartmentPage(String company, int afterId, int limit) throws SQLException {
+        PreparedStatement ps = prepareStreaming(
+            "SELECT * FROM department WHERE company = ? AND dept_id > ? ORDER BY dept_id LIMIT ?");
+        ps.setString(1, company);
+        ps.setInt(2, afterId);
+        ps.setInt(3, limit);
+        return new ResultSetCursor<>(ps, DataSession::toDepartment);
+    }
+
+    public Department getDepartment(String company, int deptId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM department WHERE dept_id = ? AND company = ?")) {
+            ps.setInt(1, deptId);
+            ps.setString(2, company);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? toDepartment(rs) : null;
+            }
+        }
+    }
+
+    public Department getDepartmentNo(String company, String deptNo) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM department WHERE dept_no = ? AND company = ?")) {
+            ps.setString(1, deptNo);
+            ps.setString(2, company);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? toDepartment(rs) : null;
+            }
+        }
+    }
+
+    public Department insertDepartment(Department dept) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO department (company, dept_name, dept_no, location ) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setString(1, dept.getCompany());
+            ps.setString(2, dept.getDeptName());
+            ps.setString(3, dept.getDeptNo());
+            ps.setString(4, dept.getLocation());
+            if (ps.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                return keys.next() ? getDepartmentById(keys.getInt(1)) : null;
+            }
+        }
+    }
+
+    /**
+     * Inserts the departments with one JDBC batch and returns them with their
+     * generated ids, in the same order.
+     */
+    public List<Department> insertDepartments(List<Department> departments) throws SQLException {
+        List<Department> inserted = new ArrayList<>(departments.size());
+        if (departments.isEmpty()) {
+            return inserted;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO department (company, dept_name, dept_no, location ) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (Department dept : departments) {
+                ps.setString(1, dept.getCompany());
+                ps.setString(2, dept.getDeptName());
+                ps.setString(3, dept.getDeptNo());
+                ps.setString(4, dept.getLocation());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (Department dept : departments) {
+                    inserted.add(new Department(nextKey(keys), dept.getCompany(), dept.getDeptName(),
+                        dept.getDeptNo(), dept.getLocation()));
+                }
+            }
+        }
+        return inserted;
+    }
+
+    public Department updateDepartment(Department dept) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE department SET dept_name = ?, dept_no = ?, location = ? WHERE dept_id = ?")) {
+            ps.setString(1, dept.getDeptName());
+            ps.setString(2, dept.getDeptNo());
+            ps.setString(3, dept.getLocation());
+            ps.setInt(4, dept.getId());
+            if (ps.executeUpdate() == 0) {
+                return null;
+            }
+        }
+        return getDepartmentById(dept.getId());
+    }
+
+    public int deleteDepartment(String company, int deptId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "DELETE from department WHERE dept_id = ? AND company = ?")) {
+            ps.setInt(1, deptId);
+            ps.setString(2, company);
+            return ps.executeUpdate();
+        }
+    }
+
+    private Department getDepartmentById(int deptId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM department WHERE dept_id = ?")) {
+            ps.setInt(1, deptId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? toDepartment(rs) : null;
+            }
+        }
+    }
+
+    // Employee operations
+    public List<Employee> getAllEmployee(String company) throws SQLException {
+        List<Employee> employees = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM employee LEFT JOIN department USING(dept_id) WHERE department.company = ?")) {
+            ps.setString(1, company);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    employees.add(toEmployee(rs));
+                }
+            }
+        }
+        return employees;
+    }
+
+    public RowCursor<Employee> streamEmployeePage(String company, int afterId, int limit) throws SQLException {
+        PreparedStatement ps = prepareStreaming(
+            "SELECT * FROM employee LEFT JOIN department USING(dept_id) WHERE department.company = ? AND employee.emp_id > ? ORDER BY employee.emp_id LIMIT ?");
+        ps.setString(1, company);
+        ps.setInt(2, afterId);
+        ps.setInt(3, limit);
+        return new ResultSetCursor<>(ps, DataSession::toEmployee);
+    }
+
+    public Employee getEmployee(int empId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM employee WHERE emp_id = ?")) {
+            ps.setInt(1, empId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? toEmployee(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Point lookup of an employee number within a company, used for
+     * uniqueness checks instead of scanning every employee.
+     */
+    public Employee getEmployeeNo(String company, String empNo) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT employee.* FROM employee JOIN department USING(dept_id) WHERE department.company = ? AND employee.emp_no = ? LIMIT 1")) {
+            ps.setString(1, company);
+            ps.setString(2, empNo);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? toEmployee(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * Reads an employee and locks the row until the transaction ends, so
+     * concurrent writers of that employee's timecards run one at a time.
+     */
+    public Employee lockEmployee(int empId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM employee WHERE emp_id = ? FOR UPDATE")) {
+            ps.setInt(1, empId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? toEmployee(rs) : null;
+            }
+        }
+    }
+
+    public Employee insertEmployee(Employee emp) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO employee (emp_name, emp_no, hire_date, job, salary, dept_id, mng_id ) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            bindEmployee(ps, emp);
+            if (ps.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                return keys.next() ? getEmployee(keys.getInt(1)) : null;
+            }
+        }
+    }
+
+    public List<Employee> insertEmployees(List<Employee> employees) throws SQLException {
+        List<Employee> inserted = new ArrayList<>(employees.size());
+        if (employees.isEmpty()) {
+            return inserted;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO employee (emp_name, emp_no, hire_date, job, salary, dept_id, mng_id ) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (Employee emp : employees) {
+                bindEmployee(ps, emp);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (Employee emp : employees) {
+                    inserted.add(new Employee(nextKey(keys), emp.getEmpName(), emp.getEmpNo(),
+                        emp.getHireDate(), emp.getJob(), emp.getSalary(), emp.getDeptId(), emp.getMngId()));
+                }
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Locks the given employees for the rest of the transaction and returns
+     * those that exist.
+     */
+    public List<Employee> lockEmployees(Collection<Integer> empIds) throws SQLException {
+        List<Employee> employees = new ArrayList<>();
+        if (empIds.isEmpty()) {
+            return employees;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM employee WHERE emp_id IN (" + placeholders(empIds.size()) + ") FOR UPDATE")) {
+            bindIds(ps, empIds);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    employees.add(toEmployee(rs));
+                }
+            }
+        }
+        return employees;
+    }
+
+    /**
+     * Sets the manager of each employee in the map, in one batch.
+     */
+    public void updateManagers(Map<Integer, Integer> managers) throws SQLException {
+        if (managers.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE employee SET mng_id = ? WHERE emp_id = ?")) {
+            for (Map.Entry<Integer, Integer> manager : managers.entrySet()) {
+                ps.setInt(1, manager.getValue());
+                ps.setInt(2, manager.getKey());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    public Employee updateEmployee(Employee emp) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE employee SET emp_name = ?, emp_no = ?, hire_date = ?, job = ?, salary = ?, dept_id = ?, mng_id = ? WHERE emp_id = ?")) {
+            bindEmployee(ps, emp);
+            ps.setInt(8, emp.getId());
+            if (ps.executeUpdate() == 0) {
+                return null;
+            }
+        }
+        return getEmployee(emp.getId());
+    }
+
+    public int deleteEmployee(int empId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "DELETE from employee WHERE emp_id = ?")) {
+            ps.setInt(1, empId);
+            return ps.executeUpdate();
+        }
+    }
+
+    // Timecard operations
+    public List<Timecard> getAllTimecard(int empId) throws SQLException {
+        List<Timecard> timecards = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM timecard where emp_id = ?")) {
+            ps.setInt(1, empId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    timecards.add(toTimecard(rs));
+                }
+            }
+        }
+        return timecards;
+    }
+
+    public RowCursor<Timecard> streamTimecardPage(int empId, int afterId, int limit) throws SQLException {
+        PreparedStatement ps = prepareStreaming(
+            "SELECT * FROM timecard where emp_id = ? AND timecard_id > ? ORDER BY timecard_id LIMIT ?");
+        ps.setInt(1, empId);
+        ps.setInt(2, afterId);
+        ps.setInt(3, limit);
+        return new ResultSetCursor<>(ps, DataSession::toTimecard);
+    }
+
+    public Timecard getTimecard(int timecardId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM timecard where timecard_id = ?")) {
+            ps.setInt(1, timecardId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? toTimecard(rs) : null;
+            }
+        }
+    }
+
+    public Timecard insertTimecard(Timecard timecard) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO timecard (start_time, end_time, emp_id ) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setTimestamp(1, timecard.getStartTime());
+            ps.setTimestamp(2, timecard.getEndTime());
+            ps.setInt(3, timecard.getEmpId());
+            if (ps.executeUpdate() == 0) {
+                return null;
+            }
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                return keys.next() ? getTimecard(keys.getInt(1)) : null;
+            }
+        }
+    }
+
+    public List<Timecard> insertTimecards(List<Timecard> timecards) throws SQLException {
+        List<Timecard> inserted = new ArrayList<>(timecards.size());
+        if (timecards.isEmpty()) {
+            return inserted;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO timecard (start_time, end_time, emp_id ) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (Timecard timecard : timecards) {
+                ps.setTimestamp(1, timecard.getStartTime());
+                ps.setTimestamp(2, timecard.getEndTime());
+                ps.setInt(3, timecard.getEmpId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (Timecard timecard : timecards) {
+                    inserted.add(new Timecard(nextKey(keys), timecard.getStartTime(),
+                        timecard.getEndTime(), timecard.getEmpId()));
+                }
+            }
+        }
+        return inserted;
+    }
+
+    public List<Timecard> getTimecardsForEmployees(Collection<Integer> empIds) throws SQLException {
+        List<Timecard> timecards = new ArrayList<>();
+        if (empIds.isEmpty()) {
+            return timecards;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT * FROM timecard WHERE emp_id IN (" + placeholders(empIds.size()) + ")")) {
+            bindIds(ps, empIds);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    timecards.add(toTimecard(rs));
+                }
+            }
+        }
+        return timecards;
+    }
+
+    public RowCursor<Timecard> streamCompanyTimecards(String company) throws SQLException {
+        PreparedStatement ps = prepareStreaming(
+            "SELECT timecard.* FROM timecard JOIN employee USING(emp_id) JOIN department USING(dept_id) WHERE department.company = ?");
+        ps.setString(1, company);
+        return new ResultSetCursor<>(ps, DataSession::toTimecard);
+    }
+
+    public Timecard updateTimecard(Timecard timecard) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "UPDATE timecard SET start_time = ?, end_time = ? WHERE timecard_id = ?")) {
+            ps.setTimestamp(1, timecard.getStartTime());
+            ps.setTimestamp(2, timecard.getEndTime());
+            ps.setInt(3, timecard.getId());
+            if (ps.executeUpdate() == 0) {
+                return null;
+            }
+        }
+        return getTimecard(timecard.getId());
+    }
+
+    public int deleteTimecard(int timecardId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "DELETE from timecard WHERE timecard_id = ?")) {
+            ps.setInt(1, timecardId);
+            return ps.executeUpdate();
+        }
+    }
+
+    // Streaming
+    // Connector/J sends rows one at a time, instead of buffering the whole
+    // result, only for forward-only, read-only statements with this fetch size
+    private PreparedStatement prepareStreaming(String sql) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(sql,
+            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(Integer.MIN_VALUE);
+        return ps;
+    }
+
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    // Runs the query up front so that errors surface before any row is written
+    private static final class ResultSetCursor<T> implements RowCursor<T> {
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private final RowMapper<T> mapper;
+
+        ResultSetCursor(PreparedStatement statement, RowMapper<T> mapper) throws SQLException {
+            this.statement = statement;
+            this.mapper = mapper;
+            try {
+                resultSet = statement.executeQuery();
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public T next() throws SQLException {
+            return resultSet.next() ? mapper.map(resultSet) : null;
+        }
+
+        @Override
+        public void close() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // Closing the statement also closes its result set
+            }
+        }
+    }
+
+    private interface CursorQuery {
+        RowCursor<?> open() throws SQLException;
+    }
+
+    // Reads the cursors one after the other, opening each when it is reached
+    private static final class ChainedCursor implements RowCursor<Object> {
+        private final Iterator<CursorQuery> queries;
+        private RowCursor<?> current;
+
+        ChainedCursor(List<CursorQuery> queries) throws SQLException {
+            this.queries = queries.iterator();
+            current = this.queries.next().open();
+        }
+
+        @Override
+        public Object next() throws SQLException {
+            while (current != null) {
+                Object row = current.next();
+                if (row != null) {
+                    return row;
+                }
+                current.close();
+                current = null;
+                if (queries.hasNext()) {
+                    current = queries.next().open();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+
+    // Batching
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        return sql.toString();
+    }
+
+    private static void bindIds(PreparedStatement ps, Collection<Integer> ids) throws SQLException {
+        int index = 1;
+        for (int id : ids) {
+            ps.setInt(index++, id);
+        }
+    }
+
+    private static int nextKey(ResultSet keys) throws SQLException {
+        if (!keys.next()) {
+            throw new SQLException("Batch insert returned fewer generated keys than rows");
+        }
+        return keys.getInt(1);
+    }
+
+    // Row mapping
+    private static void bindEmployee(PreparedStatement ps, Employee emp) throws SQLException {
+        ps.setString(1, emp.getEmpName());
+        ps.setString(2, emp.getEmpNo());
+        ps.setDate(3, emp.getHireDate());
+        ps.setString(4, emp.getJob());
+        ps.setDouble(5, emp.getSalary());
+        ps.setInt(6, emp.getDeptId());
+        ps.setInt(7, emp.getMngId());
+    }
+
+    private static Department toDepartment(ResultSet rs) throws SQLException {
+        return new Department(
+            rs.getInt("dept_id"),
+            rs.getString("company"),
+            rs.getString("dept_name"),
+            rs.getString("dept_no"),
+            rs.getString("location"));
+    }
+
+    private static Employee toEmployee(ResultSet rs) throws SQLException {
+        return new Employee(
+            rs.getInt("emp_id"),
+            rs.getString("emp_name"),
+            rs.getString("emp_no"),
+            rs.getDate("hire_date"),
+            rs.getString("job"),
+            rs.getDouble("salary"),
+            rs.getInt("dept_id"),
+            rs.getInt("mng_id"));
+    }
+
+    private static Timecard toTimecard(ResultSet rs) throws SQLException {
+        return new Timecard(
+            rs.getInt("timecard_id"),
+            rs.getTimestamp("start_time"),
+            rs.getTimestamp("end_time"),
+            rs.getInt("emp_id"));
+    }
+}
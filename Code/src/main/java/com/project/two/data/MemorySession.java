@@ -0,0 +1,590 @@
+package com.project.two.data;
+
+import com.project.two.data.MemoryStorage.RowKey;
+import com.project.two.data.MemoryStorage.Table;
+import companydata.*;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.UnaryOperator;
+
+/**
+ * A session of a {@link MemoryStorage}. Outside a transaction each write is
+ * a transaction of its own.
+ */
+final class MemorySession implements StorageSession {
+    private final MemoryStorage storage;
+    private final Deque<Runnable> undo = new ArrayDeque<>();
+    private boolean inTransaction;
+
+    // Guarded by the storage's lock
+    final List<RowKey> rowsLocked = new ArrayList<>();
+    MemorySession waitingFor;
+
+    MemorySession(MemoryStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public void begin() {
+        inTransaction = true;
+    }
+
+    // Each streamCompany call reads under one lock, so it already sees a
+    // single committed state of the tables
+    @Override
+    public void beginSnapshot() {
+    }
+
+    @Override
+    public void commit() {
+        end(true);
+    }
+
+    @Override
+    public void rollback() {
+        end(false);
+    }
+
+    // A transaction that locked nothing has nothing to release
+    private void end(boolean commit) {
+        if (!inTransaction) {
+            return;
+        }
+        if (undo.isEmpty() && rowsLocked.isEmpty()) {
+            inTransaction = false;
+            return;
+        }
+        Lock lock = storage.lock.writeLock();
+        lock.lock();
+        try {
+            endLocked(commit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void endLocked(boolean commit) {
+        if (!commit) {
+            while (!undo.isEmpty()) {
+                undo.pop().run();
+            }
+        }
+        undo.clear();
+        storage.unlockRows(this);
+        inTransaction = false;
+    }
+
+    @Override
+    public void close() {
+        rollback();
+    }
+
+    private interface Body<T> {
+        T run() throws SQLException;
+    }
+
+    private <T> T read(Body<T> body) throws SQLException {
+        Lock lock = storage.lock.readLock();
+        lock.lock();
+        try {
+            return body.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Runs one write statement, in a transaction of its own outside one
+    private <T> T write(Body<T> body) throws SQLException {
+        boolean autocommit = !inTransaction;
+        inTransaction = true;
+        Lock lock = storage.lock.writeLock();
+        lock.lock();
+        try {
+            T result = body.run();
+            if (autocommit) {
+                endLocked(true);
+            }
+            return result;
+        } finally {
+            if (autocommit && inTransaction) {
+                endLocked(false);
+            }
+            lock.unlock();
+        }
+    }
+
+    // Company operations
+    @Override
+    public int deleteCompany(String company) throws SQLException {
+        return write(() -> {
+            while (lockCompany(company)) {
+                // Rows may have been added or removed while waiting
+            }
+            int deleted = 0;
+            for (int empId : storage.employeesOf(company).keySet()) {
+                for (Timecard timecard : new ArrayList<>(storage.timecardsOf(empId).values())) {
+                    remove(timecard);
+                    deleted++;
+                }
+            }
+            for (Employee emp : new ArrayList<>(storage.employeesOf(company).values())) {
+                remove(emp);
+                deleted++;
+            }
+            for (Department dept : new ArrayList<>(storage.departmentsOf(company).values())) {
+                remove(dept);
+                deleted++;
+            }
+            return deleted;
+        });
+    }
+
+    // Locks every row of the company, current or committed; returns whether
+    // it had to wait for one
+    private boolean lockCompany(String company) throws SQLException {
+        boolean waited = false;
+        for (int deptId : storage.rowIds(Table.DEPARTMENT, storage.departmentsOf(company).keySet(),
+                held -> company.equals(held.<Department>committed().getCompany()), this)) {
+            waited |= storage.lockRow(Table.DEPARTMENT, deptId, this);
+        }
+        for (int empId : storage.rowIds(Table.EMPLOYEE, storage.employeesOf(company).keySet(),
+                held -> company.equals(held.company), this)) {
+            waited |= storage.lockRow(Table.EMPLOYEE, empId, this);
+            for (int timecardId : storage.rowIds(Table.TIMECARD, storage.timecardsOf(empId).keySet(),
+                    held -> held.<Timecard>committed().getEmpId() == empId, this)) {
+                waited |= storage.lockRow(Table.TIMECARD, timecardId, this);
+            }
+        }
+        return waited;
+    }
+
+    @Override
+    public RowCursor<Object> streamCompany(String company) throws SQLException {
+        return read(() -> {
+            List<Object> rows = new ArrayList<>();
+            for (Department dept : departments(company, 0, Integer.MAX_VALUE)) {
+                rows.add(copy(dept));
+            }
+            List<Employee> employees = employees(company, 0, Integer.MAX_VALUE);
+            for (Employee emp : employees) {
+                rows.add(copy(emp));
+            }
+            for (Employee emp : employees) {
+                for (Timecard timecard : timecards(emp.getId(), 0, Integer.MAX_VALUE)) {
+                    rows.add(copy(timecard));
+                }
+            }
+            return RowCursor.of(rows);
+        });
+    }
+
+    // Department operations
+    @Override
+    public List<Department> getAllDepartment(String company) throws SQLException {
+        return read(() -> copies(departments(company, 0, Integer.MAX_VALUE), MemorySession::copy));
+    }
+
+    @Override
+    public RowCursor<Department> streamDepartmentPage(String company, int afterId, int limit) throws SQLException {
+        return read(() -> RowCursor.of(copies(departments(company, afterId, limit), MemorySession::copy)));
+    }
+
+    @Override
+    public Department getDepartment(String company, int deptId) throws SQLException {
+        return read(() -> {
+            Department dept = storage.visible(Table.DEPARTMENT, deptId, storage.department(deptId), this);
+            return dept != null && dept.getCompany().equals(company) ? copy(dept) : null;
+        });
+    }
+
+    @Override
+    public Department getDepartmentNo(String company, String deptNo) throws SQLException {
+        return read(() -> first(storage.visible(Table.DEPARTMENT, storage.departmentsNo(company, deptNo),
+            storage::department, 0, 1, held -> {
+                Department dept = held.committed();
+                return dept.getCompany().equals(company) && Objects.equals(dept.getDeptNo(), deptNo);
+            }, this), MemorySession::copy));
+    }
+
+    @Override
+    public Department insertDepartment(Department dept) throws SQLException {
+        return write(() -> insert(dept));
+    }
+
+    @Override
+    public List<Department> insertDepartments(List<Department> departments) throws SQLException {
+        return write(() -> {
+            List<Department> inserted = new ArrayList<>(departments.size());
+            for (Department dept : departments) {
+                inserted.add(insert(dept));
+            }
+            return inserted;
+        });
+    }
+
+    private Department insert(Department dept) throws SQLException {
+        if (dept.getCompany() == null) {
+            throw new SQLException("Column 'company' cannot be null", "23000");
+        }
+        Department stored = new Department(storage.nextDeptId(), dept.getCompany(), dept.getDeptName(),
+            dept.getDeptNo(), dept.getLocation());
+        put(stored);
+        return copy(stored);
+    }
+
+    @Override
+    public Department updateDepartment(Department dept) throws SQLException {
+        return write(() -> {
+            storage.lockRow(Table.DEPARTMENT, dept.getId(), this);
+            Department existing = storage.department(dept.getId());
+            if (existing == null) {
+                return null;
+            }
+            Department updated = new Department(existing.getId(), existing.getCompany(), dept.getDeptName(),
+                dept.getDeptNo(), dept.getLocation());
+            put(updated);
+            return copy(updated);
+        });
+    }
+
+    @Override
+    public int deleteDepartment(String company, int deptId) throws SQLException {
+        return write(() -> {
+            storage.lockRow(Table.DEPARTMENT, deptId, this);
+            Department dept = storage.department(deptId);
+            if (dept == null || !dept.getCompany().equals(company)) {
+                return 0;
+            }
+            if (!storage.awaitRows(Table.EMPLOYEE, () -> storage.employeesIn(deptId),
+                    held -> held.<Employee>committed().getDeptId() == deptId, this).isEmpty()) {
+                throw parentRow("department " + deptId + " has employees");
+            }
+            remove(dept);
+            return 1;
+        });
+    }
+
+    // Employee operations
+    @Override
+    public List<Employee> getAllEmployee(String company) throws SQLException {
+        return read(() -> copies(employees(company, 0, Integer.MAX_VALUE), MemorySession::copy));
+    }
+
+    @Override
+    public RowCursor<Employee> streamEmployeePage(String company, int afterId, int limit) throws SQLException {
+        return read(() -> RowCursor.of(copies(employees(company, afterId, limit), MemorySession::copy)));
+    }
+
+    @Override
+    public Employee getEmployee(int empId) throws SQLException {
+        return read(() -> copy(storage.visible(Table.EMPLOYEE, empId, storage.employee(empId), this)));
+    }
+
+    @Override
+    public Employee getEmployeeNo(String company, String empNo) throws SQLException {
+        return read(() -> first(storage.visible(Table.EMPLOYEE, storage.employeesNo(company, empNo),
+            storage::employee, 0, 1, held -> company.equals(held.company)
+                && Objects.equals(held.<Employee>committed().getEmpNo(), empNo), this), MemorySession::copy));
+    }
+
+    @Override
+    public Employee lockEmployee(int empId) throws SQLException {
+        return write(() -> {
+            storage.lockRow(Table.EMPLOYEE, empId, this);
+            return copy(storage.employee(empId));
+        });
+    }
+
+    @Override
+    public Employee insertEmployee(Employee emp) throws SQLException {
+        return write(() -> insert(emp));
+    }
+
+    @Override
+    public List<Employee> insertEmployees(List<Employee> employees) throws SQLException {
+        return write(() -> {
+            List<Employee> inserted = new ArrayList<>(employees.size());
+            for (Employee emp : employees) {
+                inserted.add(insert(emp));
+            }
+            return inserted;
+        });
+    }
+
+    private Employee insert(Employee emp) throws SQLException {
+        checkDepartment(emp.getDeptId());
+        Employee stored = new Employee(storage.nextEmpId(), emp.getEmpName(), emp.getEmpNo(), emp.getHireDate(),
+            emp.getJob(), emp.getSalary(), emp.getDeptId(), emp.getMngId());
+        put(stored);
+        return copy(stored);
+    }
+
+    // In id order, so that two sessions locking overlapping sets cannot deadlock
+    @Override
+    public List<Employee> lockEmployees(Collection<Integer> empIds) throws SQLException {
+        return write(() -> {
+            List<Employee> employees = new ArrayList<>();
+            for (int empId : new TreeSet<>(empIds)) {
+                storage.lockRow(Table.EMPLOYEE, empId, this);
+            }
+            for (int empId : empIds) {
+                Employee emp = storage.employee(empId);
+                if (emp != null) {
+                    employees.add(copy(emp));
+                }
+            }
+            return employees;
+        });
+    }
+
+    @Override
+    public void updateManagers(Map<Integer, Integer> managers) throws SQLException {
+        write(() -> {
+            for (int empId : new TreeSet<>(managers.keySet())) {
+                storage.lockRow(Table.EMPLOYEE, empId, this);
+            }
+            for (Map.Entry<Integer, Integer> manager : managers.entrySet()) {
+                Employee emp = storage.employee(manager.getKey());
+                if (emp != null) {
+                    put(withManager(emp, manager.getValue()));
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Employee updateEmployee(Employee emp) throws SQLException {
+        return write(() -> {
+            storage.lockRow(Table.EMPLOYEE, emp.getId(), this);
+            if (storage.employee(emp.getId()) == null) {
+                return null;
+            }
+            checkDepartment(emp.getDeptId());
+            Employee updated = copy(emp);
+            put(updated);
+            return copy(updated);
+        });
+    }
+
+    @Override
+    public int deleteEmployee(int empId) throws SQLException {
+        return write(() -> {
+            storage.lockRow(Table.EMPLOYEE, empId, this);
+            Employee emp = storage.employee(empId);
+            if (emp == null) {
+                return 0;
+            }
+            if (!storage.awaitRows(Table.TIMECARD, () -> storage.timecardsOf(empId).keySet(),
+                    held -> held.<Timecard>committed().getEmpId() == empId, this).isEmpty()) {
+                throw parentRow("employee " + empId + " has timecards");
+            }
+            if (!storage.awaitRows(Table.EMPLOYEE, () -> storage.reportsOf(empId),
+                    held -> held.<Employee>committed().getMngId() == empId, this).isEmpty()) {
+                throw parentRow("employee " + empId + " has reports");
+            }
+            remove(emp);
+            return 1;
+        });
+    }
+
+    // Timecard operations
+    @Override
+    public List<Timecard> getAllTimecard(int empId) throws SQLException {
+        return read(() -> copies(timecards(empId, 0, Integer.MAX_VALUE), MemorySession::copy));
+    }
+
+    @Override
+    public RowCursor<Timecard> streamTimecardPage(int empId, int afterId, int limit) throws SQLException {
+        return read(() -> RowCursor.of(copies(timecards(empId, afterId, limit), MemorySession::copy)));
+    }
+
+    @Override
+    public Timecard getTimecard(int timecardId) throws SQLException {
+        return read(() -> copy(storage.visible(Table.TIMECARD, timecardId, storage.timecard(timecardId), this)));
+    }
+
+    @Override
+    public Timecard insertTimecard(Timecard timecard) throws SQLException {
+        return write(() -> insert(timecard));
+    }
+
+    @Override
+    public List<Timecard> insertTimecards(List<Timecard> timecards) throws SQLException {
+        return write(() -> {
+            List<Timecard> inserted = new ArrayList<>(timecards.size());
+            for (Timecard timecard : timecards) {
+                inserted.add(insert(timecard));
+            }
+            return inserted;
+        });
+    }
+
+    private Timecard insert(Timecard timecard) throws SQLException {
+        storage.awaitCommitted(Table.EMPLOYEE, timecard.getEmpId(), this);
+        if (storage.employee(timecard.getEmpId()) == null) {
+            throw new SQLException("Cannot add or update a child row: employee " + timecard.getEmpId()
+                + " does not exist", "23000");
+        }
+        Timecard stored = new Timecard(storage.nextTimecardId(), timecard.getStartTime(), timecard.getEndTime(),
+            timecard.getEmpId());
+        put(stored);
+        return copy(stored);
+    }
+
+    @Override
+    public List<Timecard> getTimecardsForEmployees(Collection<Integer> empIds) throws SQLException {
+        return read(() -> {
+            List<Timecard> timecards = new ArrayList<>();
+            for (int empId : empIds) {
+                timecards.addAll(copies(timecards(empId, 0, Integer.MAX_VALUE), MemorySession::copy));
+            }
+            return timecards;
+        });
+    }
+
+    @Override
+    public RowCursor<Timecard> streamCompanyTimecards(String company) throws SQLException {
+        return read(() -> {
+            List<Timecard> timecards = new ArrayList<>();
+            for (Employee emp : employees(company, 0, Integer.MAX_VALUE)) {
+                timecards.addAll(copies(timecards(emp.getId(), 0, Integer.MAX_VALUE), MemorySession::copy));
+            }
+            return RowCursor.of(timecards);
+        });
+    }
+
+    @Override
+    public Timecard updateTimecard(Timecard timecard) throws SQLException {
+        return write(() -> {
+            storage.lockRow(Table.TIMECARD, timecard.getId(), this);
+            Timecard existing = storage.timecard(timecard.getId());
+            if (existing == null) {
+                return null;
+            }
+            Timecard updated = new Timecard(existing.getId(), timecard.getStartTime(), timecard.getEndTime(),
+                existing.getEmpId());
+            put(updated);
+            return copy(updated);
+        });
+    }
+
+    @Override
+    public int deleteTimecard(int timecardId) throws SQLException {
+        return write(() -> {
+            storage.lockRow(Table.TIMECARD, timecardId, this);
+            Timecard timecard = storage.timecard(timecardId);
+            if (timecard == null) {
+                return 0;
+            }
+            remove(timecard);
+            return 1;
+        });
+    }
+
+    // Rows as this session sees them, at most limit after afterId in id order
+    private List<Department> departments(String company, int afterId, int limit) {
+        return storage.visible(Table.DEPARTMENT, storage.departmentsOf(company).navigableKeySet(),
+            storage::department, afterId, limit,
+            held -> company.equals(held.<Department>committed().getCompany()), this);
+    }
+
+    private List<Employee> employees(String company, int afterId, int limit) {
+        return storage.visible(Table.EMPLOYEE, storage.employeesOf(company).navigableKeySet(),
+            storage::employee, afterId, limit, held -> company.equals(held.company), this);
+    }
+
+    private List<Timecard> timecards(int empId, int afterId, int limit) {
+        return storage.visible(Table.TIMECARD, storage.timecardsOf(empId).navigableKeySet(),
+            storage::timecard, afterId, limit, held -> held.<Timecard>committed().getEmpId() == empId, this);
+    }
+
+    private void checkDepartment(int deptId) throws SQLException {
+        storage.awaitCommitted(Table.DEPARTMENT, deptId, this);
+        if (storage.department(deptId) == null) {
+            throw new SQLException("Cannot add or update a child row: department " + deptId
+                + " does not exist", "23000");
+        }
+    }
+
+    private static SQLException parentRow(String reason) {
+        return new SQLException("Cannot delete or update a parent row: " + reason, "23000");
+    }
+
+    // Table changes, each undone on rollback
+    private void put(Department dept) {
+        storage.writing(Table.DEPARTMENT, dept.getId(), this);
+        Department previous = storage.put(dept);
+        undo.push(previous == null ? () -> storage.remove(dept) : () -> storage.put(previous));
+    }
+
+    private void put(Employee emp) {
+        storage.writing(Table.EMPLOYEE, emp.getId(), this);
+        Employee previous = storage.put(emp);
+        undo.push(previous == null ? () -> storage.remove(emp) : () -> storage.put(previous));
+    }
+
+    private void put(Timecard timecard) {
+        storage.writing(Table.TIMECARD, timecard.getId(), this);
+        Timecard previous = storage.put(timecard);
+        undo.push(previous == null ? () -> storage.remove(timecard) : () -> storage.put(previous));
+    }
+
+    private void remove(Department dept) {
+        storage.writing(Table.DEPARTMENT, dept.getId(), this);
+        Department previous = storage.remove(dept);
+        if (previous != null) {
+            undo.push(() -> storage.put(previous));
+        }
+    }
+
+    private void remove(Employee emp) {
+        storage.writing(Table.EMPLOYEE, emp.getId(), this);
+        Employee previous = storage.remove(emp);
+        if (previous != null) {
+            undo.push(() -> storage.put(previous));
+        }
+    }
+
+    private void remove(Timecard timecard) {
+        storage.writing(Table.TIMECARD, timecard.getId(), this);
+        Timecard previous = storage.remove(timecard);
+        if (previous != null) {
+            undo.push(() -> storage.put(previous));
+        }
+    }
+
+    // Rows are copied in and out of the tables
+    private static <T> List<T> copies(Collection<T> rows, UnaryOperator<T> copy) {
+        List<T> copies = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            copies.add(copy.apply(row));
+        }
+        return copies;
+    }
+
+    private static <T> T first(List<T> rows, UnaryOperator<T> copy) {
+        return rows.isEmpty() ? null : copy.apply(rows.get(0));
+    }
+
+    private static Department copy(Department dept) {
+        return dept == null ? null : new Department(dept.getId(), dept.getCompany(), dept.getDeptName(),
+            dept.getDeptNo(), dept.getLocation());
+    }
+
+    private static Employee copy(Employee emp) {
+        return emp == null ? null : new Employee(emp.getId(), emp.getEmpName(), emp.getEmpNo(), emp.getHireDate(),
+            emp.getJob(), emp.getSalary(), emp.getDeptId(), emp.getMngId());
+    }
+
+    private static Timecard copy(Timecard timecard) {
+        return timecard == null ? null : new Timecard(timecard.getId(), timecard.getStartTime(),
+            timecard.getEndTime(), timecard.getEmpId());
+    }
+
+    private static Employee withManager(Employee emp, int mngId) {
+        return new Employee(emp.getId(), emp.getEmpName(), emp.getEmpNo(), emp.getHireDate(), emp.getJob(),
+            emp.getSalary(), emp.getDeptId(), mngId);
+    }
+}
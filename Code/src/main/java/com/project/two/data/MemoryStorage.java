@@ -0,0 +1,438 @@
+package com.project.two.data;
+
+import com.project.two.util.Config;
+import companydata.*;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Storage engine that keeps the company data in memory, so the service can
+ * be load-tested and profiled on a machine without a database.
+ *
+ * Rows are indexed the way the service queries them: by id, by company in id
+ * order, by department and employee number within a company, and timecards
+ * by employee in id order. Timecards by employee and day are not indexed
+ * here: no storage query asks for them, because the same-day check and the
+ * daily totals are answered by the business layer's TimecardDayIndex for
+ * either engine.
+ *
+ * The tables are locked for one statement at a time: a read shares the read
+ * lock, a write takes the write lock. A transaction holds row locks instead,
+ * until it commits or rolls back: on every row it writes, and on the rows
+ * the lock methods lock, as SELECT ... FOR UPDATE does. Until the writer
+ * commits, other sessions read a written row as last committed, so they
+ * never see changes that could still be rolled back. A write that needs a
+ * row another transaction holds waits for it, with the write lock released;
+ * as in InnoDB, a wait that would deadlock fails at once and one longer than
+ * companyservices.memory.lockWaitSeconds fails too. A rollback undoes the
+ * transaction's changes. Rows are copied in and out, so callers never share
+ * them with the tables.
+ *
+ * Deletes follow the foreign keys of the MySQL schema: a department with
+ * employees, or an employee with timecards or reports, cannot be deleted.
+ * deleteCompany removes the company's timecards, employees and departments,
+ * as DataSession does. Ids are never reused, as with AUTO_INCREMENT.
+ */
+public final class MemoryStorage implements Storage {
+    private static final long LOCK_WAIT_NANOS =
+        TimeUnit.SECONDS.toNanos(Config.getLong("companyservices.memory.lockWaitSeconds", 50));
+
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Everything below is guarded by the lock
+    private final Condition rowsUnlocked = lock.writeLock().newCondition();
+    private final Map<Table, NavigableMap<Integer, RowLock>> rowLocks = new EnumMap<>(Table.class);
+
+    private int lastDeptId;
+    private int lastEmpId;
+    private int lastTimecardId;
+
+    private final Map<Integer, Department> departments = new HashMap<>();
+    private final Map<String, NavigableMap<Integer, Department>> departmentsByCompany = new HashMap<>();
+    private final Map<NumberKey, NavigableSet<Integer>> departmentsByNo = new HashMap<>();
+
+    private final Map<Integer, Employee> employees = new HashMap<>();
+    private final Map<Integer, String> companyByEmployee = new HashMap<>();
+    private final Map<String, NavigableMap<Integer, Employee>> employeesByCompany = new HashMap<>();
+    private final Map<NumberKey, NavigableSet<Integer>> employeesByNo = new HashMap<>();
+    private final Map<Integer, NavigableSet<Integer>> employeesByDepartment = new HashMap<>();
+    private final Map<Integer, NavigableSet<Integer>> reportsByManager = new HashMap<>();
+
+    private final Map<Integer, Timecard> timecards = new HashMap<>();
+    private final Map<Integer, NavigableMap<Integer, Timecard>> timecardsByEmployee = new HashMap<>();
+
+    // A department or employee number within a company
+    private record NumberKey(String company, String number) {
+    }
+
+    enum Table {
+        DEPARTMENT, EMPLOYEE, TIMECARD
+    }
+
+    record RowKey(Table table, int id) {
+    }
+
+    // A row locked by a transaction. Once the transaction has written it,
+    // committed is the row as last committed, or null if the transaction
+    // inserted it, and company that of a committed employee
+    static final class RowLock {
+        final int id;
+        final MemorySession owner;
+        boolean written;
+        Object committed;
+        String company;
+
+        RowLock(int id, MemorySession owner) {
+            this.id = id;
+            this.owner = owner;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T committed() {
+            return (T) committed;
+        }
+    }
+
+    public MemoryStorage() {
+        for (Table table : Table.values()) {
+            rowLocks.put(table, new TreeMap<>());
+        }
+    }
+
+    @Override
+    public StorageSession openSession() {
+        return new MemorySession(this);
+    }
+
+    int nextDeptId() {
+        return ++lastDeptId;
+    }
+
+    int nextEmpId() {
+        return ++lastEmpId;
+    }
+
+    int nextTimecardId() {
+        return ++lastTimecardId;
+    }
+
+    // Departments
+    Department department(int deptId) {
+        return departments.get(deptId);
+    }
+
+    NavigableMap<Integer, Department> departmentsOf(String company) {
+        return departmentsByCompany.getOrDefault(company, Collections.emptyNavigableMap());
+    }
+
+    NavigableSet<Integer> departmentsNo(String company, String deptNo) {
+        return departmentsByNo.getOrDefault(new NumberKey(company, deptNo), Collections.emptyNavigableSet());
+    }
+
+    /**
+     * Stores the row, replacing the one with its id, and returns the row it
+     * replaced or null.
+     */
+    Department put(Department dept) {
+        Department previous = remove(dept);
+        departments.put(dept.getId(), dept);
+        departmentsByCompany.computeIfAbsent(dept.getCompany(), key -> new TreeMap<>()).put(dept.getId(), dept);
+        add(departmentsByNo, new NumberKey(dept.getCompany(), dept.getDeptNo()), dept.getId());
+        return previous;
+    }
+
+    Department remove(Department dept) {
+        Department previous = departments.remove(dept.getId());
+        if (previous != null) {
+            NavigableMap<Integer, Department> company = departmentsByCompany.get(previous.getCompany());
+            company.remove(previous.getId());
+            if (company.isEmpty()) {
+                departmentsByCompany.remove(previous.getCompany());
+            }
+            remove(departmentsByNo, new NumberKey(previous.getCompany(), previous.getDeptNo()), previous.getId());
+        }
+        return previous;
+    }
+
+    // Employees
+    Employee employee(int empId) {
+        return employees.get(empId);
+    }
+
+    NavigableMap<Integer, Employee> employeesOf(String company) {
+        return employeesByCompany.getOrDefault(company, Collections.emptyNavigableMap());
+    }
+
+    NavigableSet<Integer> employeesNo(String company, String empNo) {
+        return employeesByNo.getOrDefault(new NumberKey(company, empNo), Collections.emptyNavigableSet());
+    }
+
+    NavigableSet<Integer> employeesIn(int deptId) {
+        return employeesByDepartment.getOrDefault(deptId, Collections.emptyNavigableSet());
+    }
+
+    NavigableSet<Integer> reportsOf(int empId) {
+        return reportsByManager.getOrDefault(empId, Collections.emptyNavigableSet());
+    }
+
+    // An employee belongs to the company of their department
+    Employee put(Employee emp) {
+        Employee previous = remove(emp);
+        employees.put(emp.getId(), emp);
+        Department dept = departments.get(emp.getDeptId());
+        String company = dept == null ? null : dept.getCompany();
+        if (company != null) {
+            companyByEmployee.put(emp.getId(), company);
+            employeesByCompany.computeIfAbsent(company, key -> new TreeMap<>()).put(emp.getId(), emp);
+            add(employeesByNo, new NumberKey(company, emp.getEmpNo()), emp.getId());
+        }
+        add(employeesByDepartment, emp.getDeptId(), emp.getId());
+        add(reportsByManager, emp.getMngId(), emp.getId());
+        return previous;
+    }
+
+    Employee remove(Employee emp) {
+        Employee previous = employees.remove(emp.getId());
+        if (previous != null) {
+            String company = companyByEmployee.remove(previous.getId());
+            if (company != null) {
+                NavigableMap<Integer, Employee> rows = employeesByCompany.get(company);
+                rows.remove(previous.getId());
+                if (rows.isEmpty()) {
+                    employeesByCompany.remove(company);
+                }
+                remove(employeesByNo, new NumberKey(company, previous.getEmpNo()), previous.getId());
+            }
+            remove(employeesByDepartment, previous.getDeptId(), previous.getId());
+            remove(reportsByManager, previous.getMngId(), previous.getId());
+        }
+        return previous;
+    }
+
+    // Timecards
+    Timecard timecard(int timecardId) {
+        return timecards.get(timecardId);
+    }
+
+    NavigableMap<Integer, Timecard> timecardsOf(int empId) {
+        return timecardsByEmployee.getOrDefault(empId, Collections.emptyNavigableMap());
+    }
+
+    Timecard put(Timecard timecard) {
+        Timecard previous = remove(timecard);
+        timecards.put(timecard.getId(), timecard);
+        timecardsByEmployee.computeIfAbsent(timecard.getEmpId(), key -> new TreeMap<>())
+            .put(timecard.getId(), timecard);
+        return previous;
+    }
+
+    Timecard remove(Timecard timecard) {
+        Timecard previous = timecards.remove(timecard.getId());
+        if (previous != null) {
+            NavigableMap<Integer, Timecard> rows = timecardsByEmployee.get(previous.getEmpId());
+            rows.remove(previous.getId());
+            if (rows.isEmpty()) {
+                timecardsByEmployee.remove(previous.getEmpId());
+            }
+        }
+        return previous;
+    }
+
+    // Row locks, taken and released with the write lock held
+    /**
+     * Locks the row for the session's transaction, waiting while another
+     * transaction holds it. Returns whether it waited, which releases the
+     * write lock meanwhile, so whatever was read before may have changed.
+     */
+    boolean lockRow(Table table, int id, MemorySession session) throws SQLException {
+        NavigableMap<Integer, RowLock> locks = rowLocks.get(table);
+        boolean waited = false;
+        long remaining = LOCK_WAIT_NANOS;
+        while (true) {
+            RowLock held = locks.get(id);
+            if (held == null) {
+                locks.put(id, new RowLock(id, session));
+                session.rowsLocked.add(new RowKey(table, id));
+                return waited;
+            }
+            if (held.owner == session) {
+                return waited;
+            }
+            for (MemorySession waiter = held.owner; waiter != null; waiter = waiter.waitingFor) {
+                if (waiter == session) {
+                    throw new SQLException("Deadlock found when trying to get lock; try restarting transaction",
+                        "40001");
+                }
+            }
+            if (remaining <= 0) {
+                throw new SQLException("Lock wait timeout exceeded; try restarting transaction", "HY000");
+            }
+            session.waitingFor = held.owner;
+            try {
+                remaining = rowsUnlocked.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a row lock", e);
+            } finally {
+                session.waitingFor = null;
+            }
+            waited = true;
+        }
+    }
+
+    /**
+     * Waits for a transaction that has written the row to end, so that the
+     * row can be checked as committed.
+     */
+    void awaitCommitted(Table table, int id, MemorySession session) throws SQLException {
+        RowLock held = rowLocks.get(table).get(id);
+        if (held != null && held.written && held.owner != session) {
+            lockRow(table, id, session);
+        }
+    }
+
+    /**
+     * Records the row as last committed before the session first writes it.
+     * The session must hold the row's lock already, unless the row is new.
+     */
+    void writing(Table table, int id, MemorySession session) {
+        RowLock held = rowLocks.get(table).get(id);
+        if (held == null) {
+            held = new RowLock(id, session);
+            rowLocks.get(table).put(id, held);
+            session.rowsLocked.add(new RowKey(table, id));
+        } else if (held.owner != session) {
+            throw new IllegalStateException(table + " " + id + " is locked by another transaction");
+        }
+        if (!held.written) {
+            held.written = true;
+            switch (table) {
+                case DEPARTMENT -> held.committed = departments.get(id);
+                case EMPLOYEE -> {
+                    held.committed = employees.get(id);
+                    held.company = companyByEmployee.get(id);
+                }
+                case TIMECARD -> held.committed = timecards.get(id);
+            }
+        }
+    }
+
+    void unlockRows(MemorySession session) {
+        for (RowKey key : session.rowsLocked) {
+            rowLocks.get(key.table()).remove(key.id());
+        }
+        session.rowsLocked.clear();
+        rowsUnlocked.signalAll();
+    }
+
+    /**
+     * The row as the session sees it: as last committed while another
+     * transaction has written it.
+     */
+    <T> T visible(Table table, int id, T current, MemorySession session) {
+        RowLock held = rowLocks.get(table).get(id);
+        return held != null && held.written && held.owner != session ? held.committed() : current;
+    }
+
+    /**
+     * The rows of an index as the session sees them, at most limit after
+     * afterId in id order. ids are the rows now in the index; belongs tells
+     * which rows other transactions have written were in it as committed.
+     */
+    <T> List<T> visible(Table table, NavigableSet<Integer> ids, IntFunction<T> rowOf, int afterId, int limit,
+                        Predicate<RowLock> belongs, MemorySession session) {
+        NavigableMap<Integer, RowLock> locks = rowLocks.get(table);
+        if (locks.isEmpty()) {
+            List<T> rows = new ArrayList<>();
+            for (int id : ids.tailSet(afterId, false)) {
+                if (rows.size() == limit) {
+                    break;
+                }
+                rows.add(rowOf.apply(id));
+            }
+            return rows;
+        }
+        // The first limit rows no other transaction has written, then the
+        // committed rows of those it has, in order
+        NavigableMap<Integer, T> rows = new TreeMap<>();
+        for (int id : ids.tailSet(afterId, false)) {
+            if (rows.size() == limit) {
+                break;
+            }
+            RowLock held = locks.get(id);
+            if (held == null || !held.written || held.owner == session) {
+                rows.put(id, rowOf.apply(id));
+            }
+        }
+        for (RowLock held : locks.tailMap(afterId, false).values()) {
+            if (held.written && held.owner != session && held.committed != null && belongs.test(held)) {
+                rows.put(held.id, held.committed());
+            }
+        }
+        List<T> page = new ArrayList<>(Math.min(limit, rows.size()));
+        for (T row : rows.values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(row);
+        }
+        return page;
+    }
+
+    /**
+     * Ids of the rows of an index, as current or as committed by another
+     * transaction that has written them. ids are the rows now in the index;
+     * belongs tells which of the written rows were in it as committed.
+     */
+    NavigableSet<Integer> rowIds(Table table, Set<Integer> ids, Predicate<RowLock> belongs, MemorySession session) {
+        NavigableSet<Integer> rows = new TreeSet<>(ids);
+        for (RowLock held : rowLocks.get(table).values()) {
+            if (held.written && held.owner != session && held.committed != null && belongs.test(held)) {
+                rows.add(held.id);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Like rowIds, once every other transaction that has written one of the
+     * rows has ended: the rows a delete of their parent must find gone. ids
+     * supplies the rows now in the index, which may change while waiting.
+     */
+    NavigableSet<Integer> awaitRows(Table table, Supplier<Set<Integer>> ids, Predicate<RowLock> belongs,
+                                    MemorySession session) throws SQLException {
+        while (true) {
+            NavigableSet<Integer> rows = rowIds(table, ids.get(), belongs, session);
+            boolean waited = false;
+            for (int id : rows) {
+                RowLock held = rowLocks.get(table).get(id);
+                if (held != null && held.written && held.owner != session) {
+                    waited |= lockRow(table, id, session);
+                }
+            }
+            if (!waited) {
+                return rows;
+            }
+        }
+    }
+
+    private static <K> void add(Map<K, NavigableSet<Integer>> index, K key, int id) {
+        index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+    }
+
+    private static <K> void remove(Map<K, NavigableSet<Integer>> index, K key, int id) {
+        NavigableSet<Integer> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.project.two.data;
+
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
+import com.project.two.metrics.RequestTrace;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Counts and times every statement the driver sends, commits and rollbacks
+ * included, against the request being served on the calling thread.
+ *
+ * Connector/J creates one interceptor per physical connection, and a pooled
+ * connection is used by one thread at a time, so the phase saved between
+ * preProcess and postProcess needs no synchronization.
+ */
+public class QueryMetricsInterceptor implements QueryInterceptor {
+    private RequestTrace.Phase previous;
+
+    @Override
+    public QueryInterceptor init(MysqlConnection conn, Properties props, Log log) {
+        return this;
+    }
+
+    @Override
+    public <T extends Resultset> T preProcess(Supplier<String> sql, Query interceptedQuery) {
+        RequestTrace.countDbCall();
+        previous = RequestTrace.enter(RequestTrace.Phase.DB);
+        return null;
+    }
+
+    @Override
+    public <T extends Resultset> T postProcess(Supplier<String> sql, Query interceptedQuery,
+                                               T originalResultSet, ServerSession serverSession) {
+        // Not reached when the statement fails; the caller's next phase
+        // change then ends the DB phase instead
+        RequestTrace.exit(previous);
+        previous = null;
+        return null;
+    }
+
+    @Override
+    public boolean executeTopLevelOnly() {
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
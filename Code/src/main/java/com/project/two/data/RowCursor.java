@@ -0,0 +1,39 @@
+package com.project.two.data;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Forward-only sequence of rows that are read one at a time.
+ *
+ * A cursor over a query keeps its statement and connection open until it is
+ * closed, so callers must close it, typically with try-with-resources.
+ */
+public interface RowCursor<T> extends AutoCloseable {
+
+    /**
+     * Returns the next row, or null when there are no more rows.
+     */
+    T next() throws SQLException;
+
+    @Override
+    void close();
+
+    /**
+     * Wraps rows that are already in memory.
+     */
+    static <T> RowCursor<T> of(List<T> rows) {
+        Iterator<T> iterator = rows.iterator();
+        return new RowCursor<T>() {
+            @Override
+            public T next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package com.project.two.data;
+
+import java.sql.SQLException;
+
+/**
+ * Where the company data lives. companyservices.storage selects the engine:
+ * "mysql", the default, for the MySQL database behind the
+ * {@link ConnectionPool}, or "memory" for a {@link MemoryStorage} that needs
+ * no database and starts empty.
+ */
+public interface Storage {
+
+    StorageSession openSession() throws SQLException;
+
+    static Storage getInstance() {
+        return StorageEngines.INSTANCE;
+    }
+}
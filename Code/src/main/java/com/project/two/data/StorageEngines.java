@@ -0,0 +1,24 @@
+package com.project.two.data;
+
+import com.project.two.util.Config;
+
+// Holds the configured engine, created on first use so that the MySQL pool
+// is not opened before it is needed
+final class StorageEngines {
+    static final Storage INSTANCE = create(Config.getString("companyservices.storage", "mysql"));
+
+    private StorageEngines() {
+    }
+
+    private static Storage create(String name) {
+        switch (name.toLowerCase()) {
+            case "mysql":
+                return () -> new DataSession(ConnectionPool.getInstance());
+            case "memory":
+                return new MemoryStorage();
+            default:
+                throw new IllegalStateException("Unknown storage engine: " + name
+                    + ". Valid engines are mysql and memory");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.project.two.data;
+
+import companydata.*;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The operations of companydata.DataLayer, plus the paging, streaming and
+ * batch variants the service uses, run by one {@link Storage} engine.
+ *
+ * A session is meant for one thread at a time. Closing it releases whatever
+ * it holds and rolls back a transaction that was not committed.
+ */
+public interface StorageSession extends AutoCloseable {
+
+    /**
+     * Starts a transaction for a write and the reads that validate it. The
+     * rows the write depends on are locked with the lock methods, such as
+     * {@link #lockEmployee}, until it ends.
+     */
+    void begin() throws SQLException;
+
+    /**
+     * Starts a read-only transaction whose reads all see the same data, for
+     * exports made of several queries.
+     */
+    void beginSnapshot() throws SQLException;
+
+    void commit() throws SQLException;
+
+    void rollback();
+
+    @Override
+    void close();
+
+    /**
+     * Wraps a cursor read from this session so that closing the cursor also
+     * closes the session.
+     */
+    default <T> RowCursor<T> closingSession(RowCursor<T> rows) {
+        return new RowCursor<T>() {
+            @Override
+            public T next() throws SQLException {
+                return rows.next();
+            }
+
+            @Override
+            public void close() {
+                try {
+                    rows.close();
+                } finally {
+                    StorageSession.this.close();
+                }
+            }
+        };
+    }
+
+    // Company operations
+    int deleteCompany(String company) throws SQLException;
+
+    /**
+     * Streams the company's departments, then its employees, each in id
+     * order, then their timecards.
+     */
+    RowCursor<Object> streamCompany(String company) throws SQLException;
+
+    // Department operations
+    List<Department> getAllDepartment(String company) throws SQLException;
+
+    /**
+     * Streams up to limit departments with ids greater than afterId, in id
+     * order; likewise for the other pages. Callers read one row more than
+     * they return to learn whether a next page exists.
+     */
+    RowCursor<Department> streamDepartmentPage(String company, int afterId, int limit) throws SQLException;
+
+    Department getDepartment(String company, int deptId) throws SQLException;
+
+    Department getDepartmentNo(String company, String deptNo) throws SQLException;
+
+    Department insertDepartment(Department dept) throws SQLException;
+
+    /**
+     * Inserts the departments in one batch and returns them with their
+     * generated ids, in the same order.
+     */
+    List<Department> insertDepartments(List<Department> departments) throws SQLException;
+
+    Department updateDepartment(Department dept) throws SQLException;
+
+    int deleteDepartment(String company, int deptId) throws SQLException;
+
+    // Employee operations
+    List<Employee> getAllEmployee(String company) throws SQLException;
+
+    RowCursor<Employee> streamEmployeePage(String company, int afterId, int limit) throws SQLException;
+
+    Employee getEmployee(int empId) throws SQLException;
+
+    /**
+     * Point lookup of an employee number within a company.
+     */
+    Employee getEmployeeNo(String company, String empNo) throws SQLException;
+
+    /**
+     * Reads an employee and locks it until the transaction ends, so
+     * concurrent writers of that employee's timecards run one at a time.
+     */
+    Employee lockEmployee(int empId) throws SQLException;
+
+    Employee insertEmployee(Employee emp) throws SQLException;
+
+    List<Employee> insertEmployees(List<Employee> employees) throws SQLException;
+
+    /**
+     * Locks the given employees for the rest of the transaction and returns
+     * those that exist.
+     */
+    List<Employee> lockEmployees(Collection<Integer> empIds) throws SQLException;
+
+    /**
+     * Sets the manager of each employee in the map, in one batch.
+     */
+    void updateManagers(Map<Integer, Integer> managers) throws SQLException;
+
+    Employee updateEmployee(Employee emp) throws SQLException;
+
+    int deleteEmployee(int empId) throws SQLException;
+
+    // Timecard operations
+    List<Timecard> getAllTimecard(int empId) throws SQLException;
+
+    RowCursor<Timecard> streamTimecardPage(int empId, int afterId, int limit) throws SQLException;
+
+    Timecard getTimecard(int timecardId) throws SQLException;
+
+    Timecard insertTimecard(Timecard timecard) throws SQLException;
+
+    List<Timecard> insertTimecards(List<Timecard> timecards) throws SQLException;
+
+    List<Timecard> getTimecardsForEmployees(Collection<Integer> empIds) throws SQLException;
+
+    RowCursor<Timecard> streamCompanyTimecards(String company) throws SQLException;
+
+    Timecard updateTimecard(Timecard timecard) throws SQLException;
+
+    int deleteTimecard(int timecardId) throws SQLException;
+}
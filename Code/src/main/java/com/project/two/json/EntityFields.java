@@ -0,0 +1,158 @@
+package com.project.two.json;
+
+import com.google.gson.stream.JsonWriter;
+import com.project.two.business.HoursTotal;
+import com.project.two.util.Temporals;
+import companydata.*;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * The JSON properties of an entity type, each with a writer that reads the
+ * value through its getter.
+ *
+ * Names, order and formats match the full Gson rendering of the companydata
+ * classes, and null values are left out as Gson does, so a projection of
+ * every field is byte-for-byte the full rendering.
+ */
+public final class EntityFields<T> {
+
+    public static final EntityFields<Department> DEPARTMENT = new EntityFields<Department>("department")
+        .intField("dept_id", Department::getId)
+        .stringField("company", Department::getCompany)
+        .stringField("dept_name", Department::getDeptName)
+        .stringField("dept_no", Department::getDeptNo)
+        .stringField("location", Department::getLocation);
+
+    public static final EntityFields<Employee> EMPLOYEE = new EntityFields<Employee>("employee")
+        .intField("emp_id", Employee::getId)
+        .stringField("emp_name", Employee::getEmpName)
+        .stringField("emp_no", Employee::getEmpNo)
+        .dateField("hire_date", Employee::getHireDate)
+        .stringField("job", Employee::getJob)
+        .numberField("salary", Employee::getSalary)
+        .intField("dept_id", Employee::getDeptId)
+        .intField("mng_id", Employee::getMngId);
+
+    public static final EntityFields<Timecard> TIMECARD = new EntityFields<Timecard>("timecard")
+        .intField("timecard_id", Timecard::getId)
+        .timestampField("start_time", Timecard::getStartTime)
+        .timestampField("end_time", Timecard::getEndTime)
+        .intField("emp_id", Timecard::getEmpId);
+
+    // Rows of the hours report; they have no Gson rendering and are always
+    // written through a projection
+    public static final EntityFields<HoursTotal> HOURS = new EntityFields<HoursTotal>("hours")
+        .numberField("emp_id", HoursTotal::empId)
+        .numberField("dept_id", HoursTotal::deptId)
+        .dateField("day", HoursTotal::day)
+        .dateField("week", HoursTotal::week)
+        .dateField("month", HoursTotal::month)
+        .numberField("hours", HoursTotal::hours);
+
+    interface Property<T> {
+        void write(T row, JsonWriter out) throws IOException;
+    }
+
+    private final String entity;
+    private final Map<String, Property<T>> properties = new LinkedHashMap<>();
+
+    private EntityFields(String entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * Parses a comma-separated fields= value. Returns null, meaning the full
+     * rendering, when the value is missing or blank.
+     */
+    public FieldProjection<T> select(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        List<String> requested = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!properties.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown " + entity + " field: " + name
+                    + ". Valid fields are " + String.join(", ", properties.keySet()));
+            }
+            requested.add(name);
+        }
+
+        // Written in declaration order, each at most once
+        Set<String> names = new LinkedHashSet<>();
+        List<Property<T>> selected = new ArrayList<>();
+        for (Map.Entry<String, Property<T>> property : properties.entrySet()) {
+            if (requested.contains(property.getKey())) {
+                names.add(property.getKey());
+                selected.add(property.getValue());
+            }
+        }
+        return new FieldProjection<>(Collections.unmodifiableSet(names), selected);
+    }
+
+    /**
+     * Every property, for types that have no Gson rendering of their own.
+     */
+    public FieldProjection<T> all() {
+        return new FieldProjection<>(Collections.unmodifiableSet(properties.keySet()),
+            new ArrayList<>(properties.values()));
+    }
+
+    private EntityFields<T> intField(String name, ToIntFunction<T> getter) {
+        properties.put(name, (row, out) -> out.name(name).value(getter.applyAsInt(row)));
+        return this;
+    }
+
+    private EntityFields<T> stringField(String name, Function<T, String> getter) {
+        properties.put(name, (row, out) -> {
+            String value = getter.apply(row);
+            if (value != null) {
+                out.name(name).value(value);
+            }
+        });
+        return this;
+    }
+
+    private EntityFields<T> numberField(String name, Function<T, ? extends Number> getter) {
+        properties.put(name, (row, out) -> {
+            Number value = getter.apply(row);
+            if (value != null) {
+                out.name(name).value(value);
+            }
+        });
+        return this;
+    }
+
+    private EntityFields<T> dateField(String name, Function<T, java.sql.Date> getter) {
+        properties.put(name, (row, out) -> {
+            java.sql.Date value = getter.apply(row);
+            if (value != null) {
+                out.name(name).value(Temporals.formatDate(value.getTime()));
+            }
+        });
+        return this;
+    }
+
+    private EntityFields<T> timestampField(String name, Function<T, Timestamp> getter) {
+        properties.put(name, (row, out) -> {
+            Timestamp value = getter.apply(row);
+            if (value != null) {
+                out.name(name).value(Temporals.formatDateTime(value.getTime()));
+            }
+        });
+        return this;
+    }
+}
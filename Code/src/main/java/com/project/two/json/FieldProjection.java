@@ -0,0 +1,51 @@
+package com.project.two.json;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes only the selected properties of each row, reading them straight
+ * from the getters; no JSON tree is built and filtered.
+ */
+public final class FieldProjection<T> implements JsonRowWriter<T> {
+    private final Set<String> names;
+    private final EntityFields.Property<T>[] properties;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    FieldProjection(Set<String> names, List<EntityFields.Property<T>> properties) {
+        this.names = names;
+        this.properties = properties.toArray(new EntityFields.Property[0]);
+    }
+
+    /**
+     * The selected property names, for renderings other than JSON.
+     */
+    public Set<String> names() {
+        return names;
+    }
+
+    @Override
+    public void write(T row, JsonWriter out) throws IOException {
+        out.beginObject();
+        for (EntityFields.Property<T> property : properties) {
+            property.write(row, out);
+        }
+        out.endObject();
+    }
+
+    /**
+     * The projected row as a string, written with the Gson instance's
+     * writer settings.
+     */
+    public String toJson(Gson gson, T row) throws IOException {
+        StringWriter text = new StringWriter();
+        try (JsonWriter out = gson.newJsonWriter(text)) {
+            write(row, out);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.project.two.json;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Writes one row as a JSON value.
+ */
+public interface JsonRowWriter<T> {
+
+    void write(T row, JsonWriter out) throws IOException;
+}
@@ -0,0 +1,112 @@
+package com.project.two.metrics;
+
+import com.project.two.util.Config;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets.
+ *
+ * Values are kept in microseconds. Each power of two is split into eight
+ * linear sub-buckets, so a quantile is reported within 12.5% of the true
+ * value at any magnitude, from a fixed array of 488 counters. Recording never
+ * allocates.
+ *
+ * Quantiles cover the current and the previous window of
+ * companyservices.metrics.windowSeconds so they follow recent traffic; the
+ * count and sum are cumulative, as Prometheus expects.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+    private static final long WINDOW_NANOS =
+        TimeUnit.SECONDS.toNanos(Config.getLong("companyservices.metrics.windowSeconds", 60));
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+    private volatile long windowEnd = System.nanoTime() + WINDOW_NANOS;
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        count.increment();
+        sumNanos.add(value);
+        rotateIfDue(System.nanoTime());
+        current.incrementAndGet(bucket(value / 1000));
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * Quantiles of the recent windows in seconds, NaN when nothing was
+     * recorded in them.
+     */
+    public double[] quantiles(double... quantiles) {
+        rotateIfDue(System.nanoTime());
+        AtomicLongArray now = current;
+        AtomicLongArray before = previous;
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = now.get(i) + before.get(i);
+            total += counts[i];
+        }
+
+        double[] values = new double[quantiles.length];
+        for (int q = 0; q < quantiles.length; q++) {
+            if (total == 0) {
+                values[q] = Double.NaN;
+                continue;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            long seen = 0;
+            int i = 0;
+            while (i < BUCKETS - 1 && (seen += counts[i]) < rank) {
+                i++;
+            }
+            values[q] = upperBound(i) / 1e6;
+        }
+        return values;
+    }
+
+    private void rotateIfDue(long now) {
+        if (now - windowEnd < 0) {
+            return;
+        }
+        synchronized (this) {
+            if (now - windowEnd >= 0) {
+                // After a whole idle window the old counts are dropped too
+                previous = now - windowEnd >= WINDOW_NANOS ? new AtomicLongArray(BUCKETS) : current;
+                current = new AtomicLongArray(BUCKETS);
+                windowEnd = now + WINDOW_NANOS;
+            }
+        }
+    }
+
+    static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // Largest value in microseconds that falls in the bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >> SUB_BITS) - 1;
+        long lower = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
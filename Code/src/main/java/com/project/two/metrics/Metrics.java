@@ -0,0 +1,162 @@
+package com.project.two.metrics;
+
+import com.project.two.metrics.RequestTrace.Phase;
+import com.project.two.util.Config;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide request and operation metrics.
+ *
+ * Requests are recorded per resource method from their {@link RequestTrace};
+ * BusinessLayer operations are recorded by name. Requests slower than
+ * companyservices.metrics.slowRequestMillis are logged with their per-phase
+ * breakdown; 0, the default, turns the log off.
+ */
+public final class Metrics {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final long SLOW_REQUEST_NANOS =
+        TimeUnit.MILLISECONDS.toNanos(Config.getLong("companyservices.metrics.slowRequestMillis", 0));
+    private static final Logger SLOW_LOG = Logger.getLogger("com.project.two.metrics.slow");
+
+    private static final Map<String, Endpoint> ENDPOINTS = new ConcurrentHashMap<>();
+    private static final Map<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static void recordRequest(RequestTrace trace) {
+        if (trace == null) {
+            return;
+        }
+        Endpoint endpoint = ENDPOINTS.computeIfAbsent(trace.endpoint(), name -> new Endpoint());
+        endpoint.latency.record(trace.totalNanos());
+        endpoint.dbCalls.add(trace.dbCalls());
+        endpoint.connections.add(trace.connections());
+        for (Phase phase : RequestTrace.PHASES) {
+            endpoint.phaseNanos[phase.ordinal()].add(trace.phaseNanos(phase));
+        }
+        if (trace.isFailed()) {
+            endpoint.errors.increment();
+        }
+        if (SLOW_REQUEST_NANOS > 0 && trace.totalNanos() >= SLOW_REQUEST_NANOS) {
+            logSlowRequest(trace);
+        }
+    }
+
+    public static void recordOperation(String name, long nanos, boolean failed) {
+        Operation operation = OPERATIONS.computeIfAbsent(name, key -> new Operation());
+        operation.latency.record(nanos);
+        if (failed) {
+            operation.errors.increment();
+        }
+    }
+
+    private static void logSlowRequest(RequestTrace trace) {
+        StringBuilder message = new StringBuilder("Slow request ")
+            .append(trace.endpoint()).append(": ").append(millis(trace.totalNanos())).append(" ms (");
+        for (Phase phase : RequestTrace.PHASES) {
+            message.append(phase.name().toLowerCase()).append('=')
+                .append(millis(trace.phaseNanos(phase))).append(" ms, ");
+        }
+        message.append(trace.dbCalls()).append(" db calls, ")
+            .append(trace.connections()).append(" connections")
+            .append(trace.isFailed() ? ", failed)" : ")");
+        SLOW_LOG.warning(message.toString());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    public static void writeTo(PrometheusText out) {
+        // Sorted so the scrape lists series in a stable order
+        Map<String, Endpoint> endpoints = new TreeMap<>(ENDPOINTS);
+        Map<String, Operation> operations = new TreeMap<>(OPERATIONS);
+
+        out.family("companyservices_request_duration_seconds", "summary",
+            "Time from receiving a request to writing its response, by resource method.");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            writeSummary(out, "companyservices_request_duration_seconds",
+                entry.getValue().latency, "endpoint", entry.getKey());
+        }
+
+        out.family("companyservices_request_errors_total", "counter",
+            "Requests answered with an error, by resource method.");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            out.sample("companyservices_request_errors_total", entry.getValue().errors.sum(),
+                "endpoint", entry.getKey());
+        }
+
+        out.family("companyservices_request_phase_seconds_total", "counter",
+            "Request time spent in each phase; the phases of a request add up to its duration.");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            for (Phase phase : RequestTrace.PHASES) {
+                out.sample("companyservices_request_phase_seconds_total",
+                    entry.getValue().phaseNanos[phase.ordinal()].sum() / 1e9,
+                    "endpoint", entry.getKey(), "phase", phase.name().toLowerCase());
+            }
+        }
+
+        out.family("companyservices_request_db_calls_total", "counter",
+            "Statements sent to MySQL while serving requests, by resource method.");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            out.sample("companyservices_request_db_calls_total", entry.getValue().dbCalls.sum(),
+                "endpoint", entry.getKey());
+        }
+
+        out.family("companyservices_request_db_connections_total", "counter",
+            "Pooled connections borrowed while serving requests, by resource method.");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            out.sample("companyservices_request_db_connections_total", entry.getValue().connections.sum(),
+                "endpoint", entry.getKey());
+        }
+
+        out.family("companyservices_operation_duration_seconds", "summary",
+            "Duration of BusinessLayer operations, connection handling included.");
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            writeSummary(out, "companyservices_operation_duration_seconds",
+                entry.getValue().latency, "operation", entry.getKey());
+        }
+
+        out.family("companyservices_operation_errors_total", "counter",
+            "BusinessLayer operations that threw, validation failures included.");
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            out.sample("companyservices_operation_errors_total", entry.getValue().errors.sum(),
+                "operation", entry.getKey());
+        }
+    }
+
+    private static void writeSummary(PrometheusText out, String name, LatencyHistogram latency,
+                                     String label, String value) {
+        double[] quantiles = latency.quantiles(QUANTILES);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            out.sample(name, quantiles[i], label, value, "quantile", Double.toString(QUANTILES[i]));
+        }
+        out.sample(name + "_sum", latency.sumSeconds(), label, value);
+        out.sample(name + "_count", latency.count(), label, value);
+    }
+
+    private static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder dbCalls = new LongAdder();
+        final LongAdder connections = new LongAdder();
+        final LongAdder[] phaseNanos = new LongAdder[RequestTrace.PHASES.length];
+
+        Endpoint() {
+            for (int i = 0; i < phaseNanos.length; i++) {
+                phaseNanos[i] = new LongAdder();
+            }
+        }
+    }
+
+    private static final class Operation {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,70 @@
+package com.project.two.metrics;
+
+/**
+ * Builds a scrape in the Prometheus text exposition format (version 0.0.4).
+ */
+public final class PrometheusText {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final StringBuilder text = new StringBuilder(4096);
+
+    /**
+     * Starts a metric family; its samples must follow before the next one.
+     */
+    public PrometheusText family(String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    public PrometheusText sample(String name, double value) {
+        text.append(name).append(' ');
+        return value(value);
+    }
+
+    /**
+     * A sample with labels given as alternating names and values.
+     */
+    public PrometheusText sample(String name, double value, String... labels) {
+        text.append(name).append('{');
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            escape(labels[i + 1]);
+            text.append('"');
+        }
+        text.append("} ");
+        return value(value);
+    }
+
+    private PrometheusText value(double value) {
+        if (Double.isNaN(value)) {
+            text.append("NaN");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            text.append((long) value);
+        } else {
+            text.append(value);
+        }
+        text.append('\n');
+        return this;
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> text.append("\\\\");
+                case '"' -> text.append("\\\"");
+                case '\n' -> text.append("\\n");
+                default -> text.append(c);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+}
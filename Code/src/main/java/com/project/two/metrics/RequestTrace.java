@@ -0,0 +1,147 @@
+package com.project.two.metrics;
+
+/**
+ * Where one request's time went, kept on the thread that serves it.
+ *
+ * The clock is charged to one phase at a time. Entering a phase charges the
+ * time so far to the phase being left, so a query made while validating is
+ * counted once, as database time, and the phases add up to the request's
+ * total. Outside a traced request the static methods do nothing.
+ */
+public final class RequestTrace {
+
+    public enum Phase {
+        // Waiting for an in-flight permit
+        QUEUE,
+        // Borrowing a pooled connection
+        CONNECT,
+        // Round trips to MySQL
+        DB,
+        VALIDATE,
+        // Building JSON and writing the response
+        SERIALIZE,
+        // Everything else: business logic and the framework
+        OTHER
+    }
+
+    static final Phase[] PHASES = Phase.values();
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+    private final long start;
+    private final long[] phaseNanos = new long[PHASES.length];
+    private Phase phase = Phase.QUEUE;
+    private long phaseStart;
+    private long totalNanos;
+    private int dbCalls;
+    private int connections;
+    private boolean failed;
+
+    private RequestTrace(String endpoint, long start) {
+        this.endpoint = endpoint;
+        this.start = start;
+        this.phaseStart = start;
+    }
+
+    /**
+     * Starts tracing on this thread. The request is in the QUEUE phase until
+     * the first {@link #enter}.
+     */
+    public static void begin(String endpoint, long startNanos) {
+        CURRENT.set(new RequestTrace(endpoint, startNanos));
+    }
+
+    /**
+     * Stops tracing on this thread and returns the finished trace, or null if
+     * none was started.
+     */
+    public static RequestTrace finish() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            CURRENT.remove();
+            long now = System.nanoTime();
+            trace.switchTo(Phase.OTHER, now);
+            trace.totalNanos = now - trace.start;
+        }
+        return trace;
+    }
+
+    /**
+     * Moves the clock to the given phase and returns the phase to hand back
+     * to {@link #exit} afterwards.
+     */
+    public static Phase enter(Phase next) {
+        RequestTrace trace = CURRENT.get();
+        return trace == null ? null : trace.switchTo(next, System.nanoTime());
+    }
+
+    public static void exit(Phase previous) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && previous != null) {
+            trace.switchTo(previous, System.nanoTime());
+        }
+    }
+
+    /**
+     * The trace of the request on this thread, or null outside one.
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    public static void countDbCall() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.dbCalls++;
+        }
+    }
+
+    public static void countConnection() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.connections++;
+        }
+    }
+
+    // The resource methods answer errors with a normal response, so they
+    // report them here for the error counts
+    public static void markFailed() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.failed = true;
+        }
+    }
+
+    private Phase switchTo(Phase next, long now) {
+        Phase left = phase;
+        phaseNanos[left.ordinal()] += now - phaseStart;
+        phase = next;
+        phaseStart = now;
+        return left;
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    public long totalNanos() {
+        return totalNanos;
+    }
+
+    public long phaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    public int dbCalls() {
+        return dbCalls;
+    }
+
+    public int connections() {
+        return connections;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+}
@@ -0,0 +1,266 @@
+package com.project.two.protobuf;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.project.two.business.HoursTotal;
+import com.project.two.data.RowCursor;
+import com.project.two.json.FieldProjection;
+import com.project.two.util.Temporals;
+import companydata.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts between the companydata classes and the messages of
+ * companyservices.proto.
+ */
+public final class EntityMessages {
+
+    private EntityMessages() {
+    }
+
+    public static CompanyProtos.Department toMessage(Department dept) {
+        CompanyProtos.Department.Builder message = CompanyProtos.Department.newBuilder()
+            .setDeptId(dept.getId());
+        if (dept.getCompany() != null) {
+            message.setCompany(dept.getCompany());
+        }
+        if (dept.getDeptName() != null) {
+            message.setDeptName(dept.getDeptName());
+        }
+        if (dept.getDeptNo() != null) {
+            message.setDeptNo(dept.getDeptNo());
+        }
+        if (dept.getLocation() != null) {
+            message.setLocation(dept.getLocation());
+        }
+        return message.build();
+    }
+
+    public static CompanyProtos.Employee toMessage(Employee emp) {
+        CompanyProtos.Employee.Builder message = CompanyProtos.Employee.newBuilder()
+            .setEmpId(emp.getId())
+            .setDeptId(emp.getDeptId())
+            .setMngId(emp.getMngId());
+        if (emp.getEmpName() != null) {
+            message.setEmpName(emp.getEmpName());
+        }
+        if (emp.getEmpNo() != null) {
+            message.setEmpNo(emp.getEmpNo());
+        }
+        if (emp.getHireDate() != null) {
+            message.setHireDate((int) Temporals.epochDay(emp.getHireDate().getTime()));
+        }
+        if (emp.getJob() != null) {
+            message.setJob(emp.getJob());
+        }
+        if (emp.getSalary() != null) {
+            message.setSalary(emp.getSalary());
+        }
+        return message.build();
+    }
+
+    public static CompanyProtos.Timecard toMessage(Timecard timecard) {
+        CompanyProtos.Timecard.Builder message = CompanyProtos.Timecard.newBuilder()
+            .setTimecardId(timecard.getId())
+            .setEmpId(timecard.getEmpId());
+        if (timecard.getStartTime() != null) {
+            message.setStartTime(timecard.getStartTime().getTime());
+        }
+        if (timecard.getEndTime() != null) {
+            message.setEndTime(timecard.getEndTime().getTime());
+        }
+        return message.build();
+    }
+
+    public static CompanyProtos.Hours toMessage(HoursTotal total) {
+        CompanyProtos.Hours.Builder message = CompanyProtos.Hours.newBuilder()
+            .setHours(total.hours());
+        if (total.empId() != null) {
+            message.setEmpId(total.empId());
+        }
+        if (total.deptId() != null) {
+            message.setDeptId(total.deptId());
+        }
+        if (total.day() != null) {
+            message.setDay((int) Temporals.epochDay(total.day().getTime()));
+        }
+        if (total.week() != null) {
+            message.setWeek((int) Temporals.epochDay(total.week().getTime()));
+        }
+        if (total.month() != null) {
+            message.setMonth((int) Temporals.epochDay(total.month().getTime()));
+        }
+        return message.build();
+    }
+
+    /**
+     * The message of a Department, Employee, Timecard or hours report row.
+     */
+    public static Message toMessage(Object entity) {
+        if (entity instanceof Department dept) {
+            return toMessage(dept);
+        } else if (entity instanceof Employee emp) {
+            return toMessage(emp);
+        } else if (entity instanceof Timecard timecard) {
+            return toMessage(timecard);
+        } else if (entity instanceof HoursTotal total) {
+            return toMessage(total);
+        }
+        throw new IllegalArgumentException("No message type for " + entity.getClass().getName());
+    }
+
+    public static Department fromMessage(CompanyProtos.Department message) {
+        return new Department(
+            message.getDeptId(),
+            message.hasCompany() ? message.getCompany() : null,
+            message.hasDeptName() ? message.getDeptName() : null,
+            message.hasDeptNo() ? message.getDeptNo() : null,
+            message.hasLocation() ? message.getLocation() : null);
+    }
+
+    public static Employee fromMessage(CompanyProtos.Employee message) {
+        return new Employee(
+            message.getEmpId(),
+            message.hasEmpName() ? message.getEmpName() : null,
+            message.hasEmpNo() ? message.getEmpNo() : null,
+            message.hasHireDate() ? java.sql.Date.valueOf(LocalDate.ofEpochDay(message.getHireDate())) : null,
+            message.hasJob() ? message.getJob() : null,
+            message.hasSalary() ? message.getSalary() : null,
+            message.getDeptId(),
+            message.getMngId());
+    }
+
+    public static Timecard fromMessage(CompanyProtos.Timecard message) {
+        return new Timecard(
+            message.getTimecardId(),
+            message.hasStartTime() ? new Timestamp(message.getStartTime()) : null,
+            message.hasEndTime() ? new Timestamp(message.getEndTime()) : null,
+            message.getEmpId());
+    }
+
+    /**
+     * Parses a single Department, Employee or Timecard message.
+     */
+    public static <T> T parse(Class<T> type, byte[] data) throws InvalidProtocolBufferException {
+        Object entity;
+        if (type == Department.class) {
+            entity = fromMessage(CompanyProtos.Department.parseFrom(data));
+        } else if (type == Employee.class) {
+            entity = fromMessage(CompanyProtos.Employee.parseFrom(data));
+        } else if (type == Timecard.class) {
+            entity = fromMessage(CompanyProtos.Timecard.parseFrom(data));
+        } else {
+            throw new IllegalArgumentException("No message type for " + type.getName());
+        }
+        return type.cast(entity);
+    }
+
+    /**
+     * Parses a DepartmentList, EmployeeList or TimecardList message.
+     */
+    public static <T> List<T> parseList(Class<T> type, byte[] data) throws InvalidProtocolBufferException {
+        List<T> entities = new ArrayList<>();
+        if (type == Department.class) {
+            for (CompanyProtos.Department message : CompanyProtos.DepartmentList.parseFrom(data).getItemsList()) {
+                entities.add(type.cast(fromMessage(message)));
+            }
+        } else if (type == Employee.class) {
+            for (CompanyProtos.Employee message : CompanyProtos.EmployeeList.parseFrom(data).getItemsList()) {
+                entities.add(type.cast(fromMessage(message)));
+            }
+        } else if (type == Timecard.class) {
+            for (CompanyProtos.Timecard message : CompanyProtos.TimecardList.parseFrom(data).getItemsList()) {
+                entities.add(type.cast(fromMessage(message)));
+            }
+        } else {
+            throw new IllegalArgumentException("No message type for " + type.getName());
+        }
+        return entities;
+    }
+
+    /**
+     * Wraps a record, its fields cut down to the projection if one is given.
+     */
+    public static <T> CompanyProtos.Envelope envelope(T entity, FieldProjection<T> projection) {
+        Message message = project(toMessage(entity), projection);
+        CompanyProtos.Envelope.Builder envelope = CompanyProtos.Envelope.newBuilder();
+        if (message instanceof CompanyProtos.Department dept) {
+            envelope.setDepartment(dept);
+        } else if (message instanceof CompanyProtos.Employee emp) {
+            envelope.setEmployee(emp);
+        } else {
+            envelope.setTimecard((CompanyProtos.Timecard) message);
+        }
+        return envelope.build();
+    }
+
+    public static CompanyProtos.Envelope success(String message) {
+        return CompanyProtos.Envelope.newBuilder().setSuccess(message).build();
+    }
+
+    // An error without a message is still an error, with an empty one
+    public static CompanyProtos.Envelope error(String message) {
+        return CompanyProtos.Envelope.newBuilder().setError(message != null ? message : "").build();
+    }
+
+    /**
+     * Clears the fields the projection leaves out; the message field names
+     * are the JSON property names.
+     */
+    public static Message project(Message message, FieldProjection<?> projection) {
+        if (projection == null) {
+            return message;
+        }
+        Message.Builder builder = message.toBuilder();
+        for (Descriptors.FieldDescriptor field : message.getDescriptorForType().getFields()) {
+            if (!projection.names().contains(field.getName())) {
+                builder.clearField(field);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes each row as a length-delimited message, the framing of
+     * Message.writeDelimitedTo, and closes the cursor.
+     */
+    public static <T> void writeDelimited(RowCursor<T> rows, FieldProjection<T> projection,
+                                          OutputStream output) throws IOException {
+        try (RowCursor<T> cursor = rows) {
+            CodedOutputStream out = CodedOutputStream.newInstance(output, 8192);
+            for (T row = cursor.next(); row != null; row = cursor.next()) {
+                Message message = project(toMessage(row), projection);
+                out.writeUInt32NoTag(message.getSerializedSize());
+                message.writeTo(out);
+            }
+            out.flush();
+        } catch (SQLException e) {
+            throw new IOException("Failed to read rows", e);
+        }
+    }
+
+    /**
+     * Fully qualified message name of an entity type, as sent in the proto
+     * parameter of the content type.
+     */
+    public static String messageName(Class<?> type) {
+        if (type == Department.class) {
+            return CompanyProtos.Department.getDescriptor().getFullName();
+        } else if (type == Employee.class) {
+            return CompanyProtos.Employee.getDescriptor().getFullName();
+        } else if (type == Timecard.class) {
+            return CompanyProtos.Timecard.getDescriptor().getFullName();
+        } else if (type == HoursTotal.class) {
+            return CompanyProtos.Hours.getDescriptor().getFullName();
+        }
+        throw new IllegalArgumentException("No message type for " + type.getName());
+    }
+}
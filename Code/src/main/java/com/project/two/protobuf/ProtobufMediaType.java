@@ -0,0 +1,25 @@
+package com.project.two.protobuf;
+
+import jakarta.ws.rs.core.MediaType;
+import java.util.Map;
+
+/**
+ * The protobuf media type. Responses name their message type in the proto
+ * parameter, and list responses, which are a sequence of length-delimited
+ * messages, also carry encoding=delimited.
+ */
+public final class ProtobufMediaType {
+    public static final String APPLICATION_PROTOBUF = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF_TYPE = new MediaType("application", "x-protobuf");
+
+    private ProtobufMediaType() {
+    }
+
+    public static MediaType of(String messageName) {
+        return new MediaType("application", "x-protobuf", Map.of("proto", messageName));
+    }
+
+    public static MediaType delimited(String messageName) {
+        return new MediaType("application", "x-protobuf", Map.of("proto", messageName, "encoding", "delimited"));
+    }
+}
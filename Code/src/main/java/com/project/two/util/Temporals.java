@@ -0,0 +1,94 @@
+package com.project.two.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.zone.ZoneRules;
+
+/**
+ * Date and time helpers for validation and serialization.
+ *
+ * Works on epoch milliseconds in the JVM's default time zone, the zone the
+ * database driver and the old Calendar/SimpleDateFormat code used. Everything
+ * here is stateless and safe to share between threads.
+ */
+public final class Temporals {
+    public static final int SECONDS_PER_DAY = 86400;
+
+    private static final ZoneRules ZONE = ZoneId.systemDefault().getRules();
+    private static final ZoneOffset FIXED_OFFSET = ZONE.isFixedOffset() ? ZONE.getOffset(Instant.EPOCH) : null;
+
+    private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder()
+        .append(DateTimeFormatter.ISO_LOCAL_DATE)
+        .appendLiteral(' ')
+        .appendPattern("HH:mm:ss")
+        .toFormatter();
+
+    private Temporals() {
+    }
+
+    /**
+     * Seconds since 1970-01-01T00:00 local time.
+     */
+    public static long localEpochSecond(long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000);
+        ZoneOffset offset = FIXED_OFFSET != null ? FIXED_OFFSET : ZONE.getOffset(Instant.ofEpochSecond(epochSecond));
+        return epochSecond + offset.getTotalSeconds();
+    }
+
+    public static long epochDay(long epochMillis) {
+        return Math.floorDiv(localEpochSecond(epochMillis), SECONDS_PER_DAY);
+    }
+
+    public static int secondOfDay(long epochMillis) {
+        return Math.floorMod(localEpochSecond(epochMillis), SECONDS_PER_DAY);
+    }
+
+    public static int hourOfDay(long epochMillis) {
+        return secondOfDay(epochMillis) / 3600;
+    }
+
+    /**
+     * Day of week for an epoch day, 0 for Monday through 6 for Sunday.
+     */
+    public static int dayOfWeek(long epochDay) {
+        // 1970-01-01 was a Thursday
+        return Math.floorMod(epochDay + 3, 7);
+    }
+
+    public static boolean isWeekday(long epochMillis) {
+        return dayOfWeek(epochDay(epochMillis)) < 5;
+    }
+
+    /**
+     * Parses yyyy-MM-dd into a java.sql.Date at local midnight.
+     */
+    public static java.sql.Date parseDate(String text) throws IllegalArgumentException {
+        if (text == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        try {
+            return java.sql.Date.valueOf(text.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Date must be in yyyy-MM-dd format: " + text);
+        }
+    }
+
+    /**
+     * Formats as yyyy-MM-dd.
+     */
+    public static String formatDate(long epochMillis) {
+        return LocalDate.ofEpochDay(epochDay(epochMillis)).format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    /**
+     * Formats as yyyy-MM-dd HH:mm:ss, dropping fractions of a second.
+     */
+    public static String formatDateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(localEpochSecond(epochMillis), 0, ZoneOffset.UTC).format(DATE_TIME);
+    }
+}